@@ -0,0 +1,53 @@
+package com.analyser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Analyse complète (ProjectStaticAnalyzer.analyze) de projets synthétiques de trois tailles
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnalyzeBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public SyntheticProjectGenerator.Size size;
+
+    private File projectDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        projectDir = Files.createTempDirectory("AnalyzeBenchmark").toFile();
+        new SyntheticProjectGenerator(size).generate(projectDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(projectDir);
+    }
+
+    @Benchmark
+    public ClassStructureVisitor analyze() {
+        ProjectStaticAnalyzer analyzer = new ProjectStaticAnalyzer();
+        analyzer.analyze(projectDir.getAbsolutePath());
+        return analyzer.visitor;
+    }
+}
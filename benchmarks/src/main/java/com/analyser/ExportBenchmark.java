@@ -0,0 +1,58 @@
+package com.analyser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Export du graphe d'appel du plus grand projet synthétique (analysé une seule fois), dans chaque format
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"DOT", "GRAPHML", "NDJSON"})
+    public GraphExporter.Format format;
+
+    private File workDir;
+    private ProjectStaticAnalyzer analyzer;
+    private String exportFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("ExportBenchmark").toFile();
+        File projectDir = new File(workDir, "project");
+        new SyntheticProjectGenerator(SyntheticProjectGenerator.Size.LARGE).generate(projectDir);
+
+        analyzer = new ProjectStaticAnalyzer();
+        analyzer.analyze(projectDir.getAbsolutePath());
+        exportFile = new File(workDir, "callgraph").getAbsolutePath();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public void exportCallGraph() {
+        analyzer.exportCallGraph(exportFile, format, false);
+    }
+}
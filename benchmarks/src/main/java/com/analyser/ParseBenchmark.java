@@ -0,0 +1,63 @@
+package com.analyser;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Débit sur un seul fichier : lecture + parsing (ProjectStaticAnalyzer.parseFile), et visite d'un AST déjà construit
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    private ProjectStaticAnalyzer analyzer;
+    private File sourceFile;
+    private CompilationUnit parsedUnit;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator(1, 1);
+        generator.setMethodsPerClass(40);
+        sourceFile = File.createTempFile("ParseBenchmark", ".java");
+        Files.write(sourceFile.toPath(), generator.generateClass(0, 0).getBytes(StandardCharsets.UTF_8));
+
+        analyzer = new ProjectStaticAnalyzer();
+        parsedUnit = analyzer.parseFile(sourceFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sourceFile.delete();
+    }
+
+    @Benchmark
+    public CompilationUnit parseFile() {
+        return analyzer.parseFile(sourceFile);
+    }
+
+    @Benchmark
+    public ClassStructureVisitor visitParsedUnit() {
+        ClassStructureVisitor visitor = new ClassStructureVisitor();
+        parsedUnit.accept(visitor);
+        return visitor;
+    }
+}
@@ -0,0 +1,128 @@
+package com.analyser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+// Génère un projet Java synthétique et déterministe (même graine => mêmes fichiers, octet pour octet) :
+// packages, classes avec attributs, méthodes surchargées, appels internes et appels vers d'autres classes.
+public class SyntheticProjectGenerator {
+
+    // Tailles utilisées par les benchmarks : nombre de packages et de classes par package
+    public enum Size {
+        SMALL(2, 25),
+        MEDIUM(10, 50),
+        LARGE(40, 50);
+
+        final int packages;
+        final int classesPerPackage;
+
+        Size(int packages, int classesPerPackage) {
+            this.packages = packages;
+            this.classesPerPackage = classesPerPackage;
+        }
+    }
+
+    private static final long SEED = 20240917L;
+
+    private final int packages;
+    private final int classesPerPackage;
+    private int methodsPerClass = 12;
+    private int fieldsPerClass = 6;
+    private int statementsPerMethod = 8;
+
+    public SyntheticProjectGenerator(Size size) {
+        this(size.packages, size.classesPerPackage);
+    }
+
+    public SyntheticProjectGenerator(int packages, int classesPerPackage) {
+        this.packages = packages;
+        this.classesPerPackage = classesPerPackage;
+    }
+
+    public void setMethodsPerClass(int methodsPerClass) {
+        this.methodsPerClass = methodsPerClass;
+    }
+
+    public void setFieldsPerClass(int fieldsPerClass) {
+        this.fieldsPerClass = fieldsPerClass;
+    }
+
+    public void setStatementsPerMethod(int statementsPerMethod) {
+        this.statementsPerMethod = statementsPerMethod;
+    }
+
+    // Écrit le projet sous root/src/main/java et retourne le nombre de fichiers générés
+    public int generate(File root) throws IOException {
+        Random random = new Random(SEED);
+        File sourceRoot = new File(root, "src/main/java");
+        int files = 0;
+        for (int p = 0; p < packages; p++) {
+            File packageDir = new File(sourceRoot, "bench/p" + p);
+            Files.createDirectories(packageDir.toPath());
+            for (int c = 0; c < classesPerPackage; c++) {
+                String source = generateClass(random, p, c);
+                Files.write(new File(packageDir, className(c) + ".java").toPath(), source.getBytes(StandardCharsets.UTF_8));
+                files++;
+            }
+        }
+        return files;
+    }
+
+    // Source d'une seule classe, pour les benchmarks sur un fichier
+    public String generateClass(int packageIndex, int classIndex) {
+        return generateClass(new Random(SEED + 31L * packageIndex + classIndex), packageIndex, classIndex);
+    }
+
+    private String generateClass(Random random, int packageIndex, int classIndex) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("package bench.p").append(packageIndex).append(";\n\n");
+        out.append("import java.util.ArrayList;\nimport java.util.List;\n\n");
+        out.append("/**\n * Classe générée ").append(className(classIndex)).append(".\n */\n");
+        out.append("public class ").append(className(classIndex)).append(" {\n\n");
+        for (int f = 0; f < fieldsPerClass; f++) {
+            out.append("    private ").append(f % 2 == 0 ? "int" : "List<String>").append(" field").append(f)
+                    .append(f % 2 == 0 ? " = " + random.nextInt(100) : " = new ArrayList<>()").append(";\n");
+        }
+        out.append('\n');
+        for (int m = 0; m < methodsPerClass; m++) {
+            // Une méthode sur quatre surcharge la précédente avec un paramètre de plus
+            int arity = m % 4 == 3 ? 2 : 1;
+            String name = "method" + (m % 4 == 3 ? m - 1 : m);
+            out.append("    // Méthode ").append(m).append('\n');
+            out.append("    public int ").append(name).append("(int a").append(arity > 1 ? ", String b" : "").append(") {\n");
+            out.append("        int result = a;\n");
+            for (int s = 0; s < statementsPerMethod; s++) {
+                int kind = random.nextInt(4);
+                if (kind == 0 && m > 0) {
+                    // Appel interne à une méthode déjà déclarée
+                    out.append("        result += method").append(random.nextInt(m) & ~3).append("(result);\n");
+                } else if (kind == 1) {
+                    // Appel vers une autre classe, du même package ou d'un autre
+                    int targetPackage = random.nextInt(4) == 0 ? random.nextInt(packages) : packageIndex;
+                    int targetClass = random.nextInt(classesPerPackage);
+                    out.append("        result += new bench.p").append(targetPackage).append('.').append(className(targetClass))
+                            .append("().method").append(random.nextInt(methodsPerClass) & ~3).append("(result);\n");
+                } else if (kind == 2) {
+                    out.append("        if (result > ").append(random.nextInt(1000)).append(") {\n");
+                    out.append("            result -= field0;\n");
+                    out.append("        }\n");
+                } else {
+                    out.append("        for (int i = 0; i < ").append(1 + random.nextInt(5)).append("; i++) {\n");
+                    out.append("            result ^= i * ").append(random.nextInt(31)).append(";\n");
+                    out.append("        }\n");
+                }
+            }
+            out.append("        return result;\n");
+            out.append("    }\n\n");
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static String className(int classIndex) {
+        return "Class" + classIndex;
+    }
+}
@@ -0,0 +1,204 @@
+package com.analyser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+// Cache persistant des résultats d'analyse par fichier, indexé par chemin et empreinte du contenu.
+// Un fichier inchangé depuis la dernière analyse n'est ni relu par le parseur ni revisité.
+public class AnalysisCache {
+
+    private static final int MAGIC = 0x41534341;  // "ASCA"
+    private static final int VERSION = 7;
+    private static final int HASH_LENGTH = 20;     // SHA-1
+
+    private final File cacheFile;
+    // Configuration de l'analyseur ayant produit les entrées (un changement invalide tout le cache)
+    private final String configuration;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    // Empreintes calculées pendant l'analyse en cours, en attente d'un résultat à mémoriser
+    private final Map<String, byte[]> pendingHashes = new HashMap<>();
+    // Fichiers dont le résultat a été validé (empreinte inchangée) ou mémorisé pendant l'analyse en cours :
+    // seuls leurs résultats sont rendus par get
+    private final Set<String> validated = new HashSet<>();
+
+    private int hits = 0;
+    private int misses = 0;
+    private int evicted = 0;
+
+    public AnalysisCache(File cacheFile, String configuration) {
+        this.cacheFile = cacheFile;
+        this.configuration = configuration;
+    }
+
+    // Charge le cache depuis le disque ; un fichier absent, d'une autre version ou d'une autre configuration est ignoré
+    public void load() {
+        entries.clear();
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !configuration.equals(in.readUTF())) {
+                System.err.println("Cache d'analyse incompatible, il sera reconstruit : " + cacheFile);
+                return;
+            }
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String path = in.readUTF();
+                byte[] hash = new byte[HASH_LENGTH];
+                in.readFully(hash);
+                entries.put(path, new Entry(hash, ClassStructureVisitor.readFrom(in)));
+            }
+        } catch (IOException e) {
+            entries.clear();
+            System.err.println("Erreur lors de la lecture du cache d'analyse : " + e.getMessage());
+        }
+    }
+
+    // Retourne le résultat mémorisé si le contenu du fichier n'a pas changé, sinon null. L'entrée d'un fichier
+    // modifié ou illisible est supprimée : si son analyse échoue, aucun ancien résultat ne la remplace.
+    public ClassStructureVisitor lookup(File file) throws IOException {
+        String path = file.getAbsolutePath();
+        byte[] hash;
+        try {
+            hash = hash(file);
+        } catch (IOException e) {
+            entries.remove(path);
+            throw e;
+        }
+        Entry entry = entries.get(path);
+        if (entry != null && Arrays.equals(entry.hash, hash)) {
+            hits++;
+            validated.add(path);
+            return entry.result;
+        }
+        misses++;
+        entries.remove(path);
+        pendingHashes.put(path, hash);
+        return null;
+    }
+
+    // Mémorise le résultat d'un fichier qui vient d'être analysé (après un lookup infructueux)
+    public void store(File file, ClassStructureVisitor result) {
+        String path = file.getAbsolutePath();
+        byte[] hash = pendingHashes.remove(path);
+        if (hash != null) {
+            entries.put(path, new Entry(hash, result));
+            validated.add(path);
+        }
+    }
+
+    // Résultat d'un fichier validé ou mémorisé pendant l'analyse en cours (null sinon, par exemple si son analyse
+    // a échoué), comme pour une analyse sans cache
+    public ClassStructureVisitor get(File file) {
+        String path = file.getAbsolutePath();
+        Entry entry = validated.contains(path) ? entries.get(path) : null;
+        return entry != null ? entry.result : null;
+    }
+
+    // Supprime les entrées des fichiers qui ne font plus partie du projet
+    public void retainOnly(Collection<File> files) {
+        Set<String> paths = new HashSet<>();
+        for (File file : files) {
+            paths.add(file.getAbsolutePath());
+        }
+        Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (!paths.contains(it.next())) {
+                it.remove();
+                evicted++;
+            }
+        }
+    }
+
+    // Écrit le cache sur le disque (dans un fichier temporaire renommé ensuite, pour ne jamais laisser un cache tronqué)
+    public void save() {
+        File tempFile = new File(cacheFile.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(configuration);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.write(entry.getValue().hash);
+                entry.getValue().result.writeTo(out);
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture du cache d'analyse : " + e.getMessage());
+            tempFile.delete();
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture du cache d'analyse : " + e.getMessage());
+        }
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public int getEvicted() {
+        return evicted;
+    }
+
+    // Taux de fichiers réutilisés depuis le cache lors de l'analyse en cours
+    public double getHitRate() {
+        int lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public void displayStatistics() {
+        System.out.println(String.format("Cache d'analyse : %d fichiers réutilisés sur %d (%.1f %%), %d entrées supprimées",
+                hits, hits + misses, getHitRate() * 100, evicted));
+    }
+
+    private static byte[] hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static class Entry {
+        final byte[] hash;
+        final ClassStructureVisitor result;
+
+        Entry(byte[] hash, ClassStructureVisitor result) {
+            this.hash = hash;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.analyser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+// Instrumentation d'une analyse : temps de chaque phase, latence par fichier (histogramme et percentiles), octets lus,
+// fichiers les plus lents et octets alloués. Les mesures viennent de plusieurs threads (pool d'analyse, thread qui
+// fusionne les résultats) : les enregistrements sont synchronisés, leur coût est négligeable devant un parsing.
+public class AnalysisProfiler {
+
+    public enum Phase {
+        DISCOVERY("discovery", "découverte des fichiers"),
+        CACHE("cache", "cache (empreintes, lecture, écriture)"),
+        READ("read", "lecture des fichiers"),
+        PARSE("parse", "parsing"),
+        VISIT("visit", "visite des AST"),
+        LEXICAL("lexical", "analyse lexicale (sans AST)"),
+        MERGE("merge", "fusion des résultats"),
+        EXPORT("export", "export du graphe d'appel");
+
+        private final String name;
+        private final String label;
+
+        Phase(String name, String label) {
+            this.name = name;
+            this.label = label;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    // Bornes supérieures des classes de l'histogramme de latence, en microsecondes (0,25 ms à 1 s, doublées à chaque
+    // classe) ; une dernière classe reçoit les fichiers plus lents
+    private static final long[] LATENCY_BOUNDS = new long[13];
+
+    static {
+        for (int i = 0; i < LATENCY_BOUNDS.length; i++) {
+            LATENCY_BOUNDS[i] = 250L << i;
+        }
+    }
+
+    // Mesures d'un fichier, prises sur le thread qui l'analyse
+    public static class FileProfile {
+        private final String path;
+        private final long bytes;
+        private final long[] phaseNanos = new long[Phase.values().length];
+        private final long startAllocatedBytes;
+        private long lastMark;
+        private long allocatedBytes = -1;
+
+        FileProfile(String path, long bytes, long startNanos, long startAllocatedBytes) {
+            this.path = path;
+            this.bytes = bytes;
+            this.lastMark = startNanos;
+            this.startAllocatedBytes = startAllocatedBytes;
+        }
+
+        // Attribue à la phase le temps écoulé depuis la mesure précédente
+        public void lap(Phase phase) {
+            long now = System.nanoTime();
+            phaseNanos[phase.ordinal()] += now - lastMark;
+            lastMark = now;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos(Phase phase) {
+            return phaseNanos[phase.ordinal()];
+        }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (long nanos : phaseNanos) {
+                total += nanos;
+            }
+            return total;
+        }
+
+        // Octets alloués par le thread pendant l'analyse du fichier (-1 si la JVM ne les mesure pas)
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    private final int slowestCount;
+    private final com.sun.management.ThreadMXBean allocations;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] latencyCounts = new long[LATENCY_BOUNDS.length + 1];
+    private final PriorityQueue<FileProfile> slowest;
+    private long[] fileNanos = new long[64];
+    private int fileCount = 0;
+    private long bytesRead = 0;
+    private long allocatedBytes = 0;
+    private long totalNanos = 0;
+
+    public AnalysisProfiler(int slowestCount) {
+        this.slowestCount = slowestCount;
+        // Tas borné aux slowestCount fichiers les plus lents, le moins lent en tête
+        this.slowest = new PriorityQueue<>(slowestCount + 1, Comparator.comparingLong(FileProfile::getTotalNanos));
+        this.allocations = allocationCounter();
+    }
+
+    // Compteur d'allocations par thread de HotSpot (com.sun.management), null s'il n'est pas disponible
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        try {
+            if (!counter.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            counter.setThreadAllocatedMemoryEnabled(true);
+            return counter;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    public boolean isAllocationCounted() {
+        return allocations != null;
+    }
+
+    // Octets alloués jusqu'ici par le thread courant (-1 si la JVM ne les mesure pas)
+    public long threadAllocatedBytes() {
+        return allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    // Mesures d'un fichier dont l'analyse commence maintenant sur le thread courant
+    public FileProfile startFile(String path, long bytes) {
+        return new FileProfile(path, bytes, System.nanoTime(), threadAllocatedBytes());
+    }
+
+    // Mesures d'un fichier dont l'analyse a commencé plus tôt (en mode lots, à la fin du fichier précédent)
+    public FileProfile startFile(String path, long bytes, long startNanos, long startAllocatedBytes) {
+        return new FileProfile(path, bytes, startNanos, startAllocatedBytes);
+    }
+
+    // Termine les mesures d'un fichier (sur le thread qui l'a analysé)
+    public void endFile(FileProfile file) {
+        if (file.startAllocatedBytes >= 0) {
+            file.allocatedBytes = threadAllocatedBytes() - file.startAllocatedBytes;
+        }
+        long nanos = file.getTotalNanos();
+        synchronized (this) {
+            for (int phase = 0; phase < phaseNanos.length; phase++) {
+                phaseNanos[phase] += file.phaseNanos[phase];
+            }
+            if (fileCount == fileNanos.length) {
+                fileNanos = Arrays.copyOf(fileNanos, fileCount << 1);
+            }
+            fileNanos[fileCount++] = nanos;
+            latencyCounts[latencyClass(nanos)]++;
+            bytesRead += file.bytes;
+            allocatedBytes += Math.max(0, file.allocatedBytes);
+            if (slowest.size() < slowestCount) {
+                slowest.add(file);
+            } else if (slowestCount > 0 && nanos > slowest.peek().getTotalNanos()) {
+                slowest.poll();
+                slowest.add(file);
+            }
+        }
+    }
+
+    public synchronized void addPhase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public synchronized void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    public synchronized long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public synchronized int getFileCount() {
+        return fileCount;
+    }
+
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    // Fichiers les plus lents, du plus lent au moins lent
+    public synchronized List<FileProfile> getSlowestFiles() {
+        List<FileProfile> files = new ArrayList<>(slowest);
+        files.sort(Comparator.comparingLong(FileProfile::getTotalNanos).reversed());
+        return files;
+    }
+
+    // Latence par fichier au percentile p (rang le plus proche), en nanosecondes
+    public synchronized long getLatencyPercentile(double p) {
+        if (fileCount == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(fileNanos, fileCount);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100 * fileCount);
+        return sorted[Math.max(0, Math.min(fileCount, rank) - 1)];
+    }
+
+    private static int latencyClass(long nanos) {
+        long micros = nanos / 1000;
+        for (int i = 0; i < LATENCY_BOUNDS.length; i++) {
+            if (micros < LATENCY_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BOUNDS.length;
+    }
+
+    private static String latencyLabel(int latencyClass) {
+        if (latencyClass == 0) {
+            return "< " + millis(LATENCY_BOUNDS[0] * 1000) + " ms";
+        }
+        if (latencyClass == LATENCY_BOUNDS.length) {
+            return ">= " + millis(LATENCY_BOUNDS[latencyClass - 1] * 1000) + " ms";
+        }
+        return millis(LATENCY_BOUNDS[latencyClass - 1] * 1000) + "-" + millis(LATENCY_BOUNDS[latencyClass] * 1000) + " ms";
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, nanos < 10_000_000 ? "%.2f" : "%.0f", nanos / 1e6);
+    }
+
+    // Millisecondes pour le JSON : toujours trois décimales
+    private static String jsonMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String kilobytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f Ko", bytes / 1024.0);
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f Mo", bytes / (1024.0 * 1024.0));
+    }
+
+    public synchronized void displaySummary() {
+        System.out.println("Durée de l'analyse : " + millis(totalNanos) + " ms ; " + fileCount + " fichiers, "
+                + megabytes(bytesRead) + " lus");
+        System.out.println("Temps par phase (cumulé sur tous les threads ; la fusion comprend l'export en flux) :");
+        for (Phase phase : Phase.values()) {
+            if (phaseNanos[phase.ordinal()] > 0) {
+                System.out.printf("  %-40s %10s ms%n", phase.getLabel(), millis(phaseNanos[phase.ordinal()]));
+            }
+        }
+        if (fileCount == 0) {
+            return;
+        }
+
+        System.out.println("Latence par fichier : p50 " + millis(getLatencyPercentile(50)) + " ms, p90 "
+                + millis(getLatencyPercentile(90)) + " ms, p99 " + millis(getLatencyPercentile(99)) + " ms, max "
+                + millis(getLatencyPercentile(100)) + " ms");
+        int first = 0;
+        int last = latencyCounts.length - 1;
+        while (latencyCounts[first] == 0) {
+            first++;
+        }
+        while (latencyCounts[last] == 0) {
+            last--;
+        }
+        long maxCount = 0;
+        for (long count : latencyCounts) {
+            maxCount = Math.max(maxCount, count);
+        }
+        for (int i = first; i <= last; i++) {
+            char[] bar = new char[(int) (40 * latencyCounts[i] / maxCount)];
+            Arrays.fill(bar, '#');
+            System.out.printf("  %-18s %6d %s%n", latencyLabel(i), latencyCounts[i], new String(bar));
+        }
+
+        if (allocations != null) {
+            System.out.println("Octets alloués pendant l'analyse des fichiers : " + megabytes(allocatedBytes) + " ("
+                    + megabytes(allocatedBytes / fileCount) + " par fichier en moyenne)");
+        } else {
+            System.out.println("Octets alloués : non mesurés par cette JVM");
+        }
+        System.out.println("Fichiers les plus lents :");
+        for (FileProfile file : getSlowestFiles()) {
+            System.out.printf("  %10s ms %10s%s  %s%n", millis(file.getTotalNanos()), kilobytes(file.bytes),
+                    file.allocatedBytes >= 0 ? String.format(" %12s alloués", megabytes(file.allocatedBytes)) : "", file.path);
+        }
+    }
+
+    // Profil au format JSON (durées en millisecondes)
+    public synchronized void writeJson(Writer out) throws IOException {
+        out.write("{\n  \"totalMillis\": " + jsonMillis(totalNanos) + ",\n  \"files\": " + fileCount
+                + ",\n  \"bytesRead\": " + bytesRead + ",\n  \"allocatedBytes\": " + (allocations != null ? allocatedBytes : -1)
+                + ",\n  \"phases\": {");
+        Phase[] phases = Phase.values();
+        for (int i = 0; i < phases.length; i++) {
+            out.write((i == 0 ? "" : ", ") + "\"" + phases[i].getName() + "\": " + jsonMillis(phaseNanos[i]));
+        }
+        out.write("},\n  \"latency\": {\"p50\": " + jsonMillis(getLatencyPercentile(50)) + ", \"p90\": "
+                + jsonMillis(getLatencyPercentile(90)) + ", \"p99\": " + jsonMillis(getLatencyPercentile(99)) + ", \"max\": "
+                + jsonMillis(getLatencyPercentile(100)) + "},\n  \"histogram\": [");
+        for (int i = 0; i < latencyCounts.length; i++) {
+            String upper = i < LATENCY_BOUNDS.length ? jsonMillis(LATENCY_BOUNDS[i] * 1000) : "null";
+            out.write((i == 0 ? "" : ", ") + "{\"upperMillis\": " + upper + ", \"count\": " + latencyCounts[i] + "}");
+        }
+        out.write("],\n  \"slowestFiles\": [");
+        List<FileProfile> files = getSlowestFiles();
+        for (int i = 0; i < files.size(); i++) {
+            FileProfile file = files.get(i);
+            out.write((i == 0 ? "\n    {" : ",\n    {") + "\"path\": " + ProjectMetrics.jsonString(file.path)
+                    + ", \"millis\": " + jsonMillis(file.getTotalNanos()) + ", \"bytes\": " + file.bytes);
+            for (Phase phase : phases) {
+                if (file.getNanos(phase) > 0) {
+                    out.write(", \"" + phase.getName() + "Millis\": " + jsonMillis(file.getNanos(phase)));
+                }
+            }
+            out.write(", \"allocatedBytes\": " + file.allocatedBytes + "}");
+        }
+        out.write(files.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,378 @@
+package com.analyser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Serveur HTTP local (127.0.0.1 seulement) : la JVM, les classes de JDT et les résultats des projets déjà
+// analysés restent en mémoire entre les requêtes. Les modèles sont gardés dans un cache LRU borné par une
+// estimation de leur taille ; un projet n'est réanalysé que si ses fichiers ont changé (chemin, taille ou date
+// de modification), ce qui est vérifié au plus une fois toutes les RECHECK_MILLIS millisecondes.
+//
+// Requêtes (GET, paramètre project = chemin du projet) :
+//   /metrics?project=P[&threshold=10][&format=json|csv]   métriques globales (comme --metrics)
+//   /query?project=P&q=top:methods:10[&q=...]             requêtes sur les métriques, réponse en texte
+//   /top?project=P&metric=methods[&k=10]                  k plus grandes valeurs d'une métrique, en JSON
+//   /rollup?project=P[&level=package|module]              métriques agrégées, en CSV
+//   /callgraph?project=P[&format=ndjson|dot|graphml]      graphe d'appel complet
+//   /calls?project=P&method=préfixe                       méthodes appelées par les méthodes de ce préfixe, en JSON
+//   /status                                               modèles en cache
+// Le paramètre refresh=true force la vérification des fichiers du projet.
+public class AnalysisServer {
+
+    // Délai pendant lequel un modèle est considéré à jour sans reparcourir le projet
+    private static final long RECHECK_MILLIS = 2000;
+
+    private final int port;
+    private final long memoryLimit;
+    private final int threadCount;
+    // Crée un analyseur configuré pour un projet (un analyseur ne sert qu'à une analyse)
+    private final Function<String, ProjectStaticAnalyzer> analyzers;
+
+    // Modèles par chemin canonique du projet, du moins récemment utilisé au plus récent
+    private final LinkedHashMap<String, ProjectModel> models = new LinkedHashMap<>(16, 0.75f, true);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // Résultats d'un projet : l'analyseur de la dernière analyse et l'empreinte de ses fichiers. Les requêtes
+    // sur un même projet sont sérialisées (les requêtes sur les métriques mémorisent des colonnes)
+    private class ProjectModel {
+        final String projectPath;
+        ProjectStaticAnalyzer analyzer;
+        long fingerprint;
+        long checkedAt;
+        long analysisMillis;
+        long estimatedBytes;
+        int requests;
+
+        ProjectModel(String projectPath) {
+            this.projectPath = projectPath;
+        }
+
+        // Réanalyse le projet si ses fichiers ont changé ; false si l'analyse a échoué
+        boolean refresh(boolean force) {
+            long now = System.currentTimeMillis();
+            if (analyzer != null && !force && now - checkedAt < RECHECK_MILLIS) {
+                return true;
+            }
+            ProjectStaticAnalyzer candidate = analyzers.apply(projectPath);
+            long currentFingerprint = fingerprint(candidate.getJavaFiles(new File(projectPath)));
+            checkedAt = now;
+            if (analyzer != null && currentFingerprint == fingerprint) {
+                return true;
+            }
+            long start = System.nanoTime();
+            if (!candidate.analyze(projectPath)) {
+                return false;
+            }
+            analyzer = candidate;
+            fingerprint = currentFingerprint;
+            analysisMillis = (System.nanoTime() - start) / 1_000_000;
+            estimatedBytes = estimateBytes(analyzer.visitor);
+            System.out.println("Projet analysé : " + projectPath + " (" + analysisMillis + " ms, environ "
+                    + estimatedBytes / 1024 + " Ko)");
+            return true;
+        }
+    }
+
+    public AnalysisServer(int port, long memoryLimit, int threadCount, Function<String, ProjectStaticAnalyzer> analyzers) {
+        this.port = port;
+        this.memoryLimit = memoryLimit;
+        this.threadCount = threadCount;
+        this.analyzers = analyzers;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newFixedThreadPool(threadCount);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        System.out.println("Serveur d'analyse à l'écoute sur http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    // Analyse un projet à l'avance (avant les premières requêtes) ; false si l'analyse a échoué
+    public boolean preload(String projectPath) {
+        try {
+            return model(projectPath, true) != null;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'analyse de " + projectPath + " : " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "Seule la méthode GET est acceptée\n");
+                return;
+            }
+            Map<String, List<String>> parameters = parameters(exchange.getRequestURI().getRawQuery());
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/status")) {
+                sendStatus(exchange);
+                return;
+            }
+            String projectPath = parameter(parameters, "project", null);
+            if (projectPath == null) {
+                send(exchange, 400, "Paramètre manquant : project\n");
+                return;
+            }
+            if (!new File(projectPath).isDirectory()) {
+                send(exchange, 404, "Le chemin spécifié n'est pas un répertoire valide : " + projectPath + "\n");
+                return;
+            }
+            boolean refresh = Boolean.parseBoolean(parameter(parameters, "refresh", "false"));
+            ProjectModel model = model(projectPath, refresh);
+            if (model == null) {
+                send(exchange, 500, "Le projet n'a pas pu être analysé : " + projectPath + "\n");
+                return;
+            }
+            synchronized (model) {
+                model.requests++;
+                answer(exchange, path, parameters, model);
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, "Requête invalide : " + e.getMessage() + "\n");
+        } catch (RuntimeException e) {
+            System.err.println("Erreur lors du traitement de " + exchange.getRequestURI() + " : " + e);
+            send(exchange, 500, "Erreur interne : " + e + "\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void answer(HttpExchange exchange, String path, Map<String, List<String>> parameters, ProjectModel model)
+            throws IOException {
+        ProjectStaticAnalyzer analyzer = model.analyzer;
+        switch (path) {
+            case "/metrics": {
+                int threshold = Integer.parseInt(parameter(parameters, "threshold", "10"));
+                ProjectMetrics.Format format = ProjectMetrics.Format.fromName(parameter(parameters, "format", "json"));
+                ProjectMetrics metrics = new ProjectMetrics(model.projectPath, analyzer.visitor, threshold,
+                        model.analysisMillis, analyzer.getPeakHeapBytes());
+                Writer out = open(exchange, format == ProjectMetrics.Format.JSON ? "application/json" : "text/csv");
+                ProjectMetrics.write(Collections.singletonList(metrics), format, out);
+                out.close();
+                break;
+            }
+            case "/query": {
+                List<String> queries = parameters.getOrDefault("q", Collections.emptyList());
+                if (queries.isEmpty()) {
+                    throw new IllegalArgumentException("paramètre manquant : q");
+                }
+                MetricsQuery metricsQuery = analyzer.getMetricsQuery();
+                StringBuilder text = new StringBuilder();
+                for (String query : queries) {
+                    text.append(metricsQuery.answer(MetricsQuery.Query.parse(query)));
+                }
+                send(exchange, 200, text.toString());
+                break;
+            }
+            case "/top": {
+                MetricsQuery.Metric metric = MetricsQuery.Metric.fromName(parameter(parameters, "metric", "methods"));
+                int k = Integer.parseInt(parameter(parameters, "k", "10"));
+                StringBuilder json = new StringBuilder("[");
+                for (Map.Entry<String, Integer> entry : analyzer.getMetricsQuery().top(metric, k)) {
+                    json.append(json.length() > 1 ? ",\n  " : "\n  ").append("{\"name\": ")
+                            .append(ProjectMetrics.jsonString(entry.getKey())).append(", \"value\": ")
+                            .append(entry.getValue()).append('}');
+                }
+                send(exchange, 200, "application/json", json.append(json.length() > 1 ? "\n]\n" : "]\n").toString());
+                break;
+            }
+            case "/rollup": {
+                MetricsRollup.Level level = MetricsRollup.Level.fromName(parameter(parameters, "level", "package"));
+                Writer out = open(exchange, "text/csv");
+                MetricsRollup.compute(analyzer.visitor, new File(model.projectPath), level, analyzer.resolvesCrossFileCalls())
+                        .writeCsv(out, true);
+                out.close();
+                break;
+            }
+            case "/callgraph": {
+                GraphExporter.Format format = GraphExporter.Format.fromName(parameter(parameters, "format", "ndjson"));
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(200, 0);
+                try (GraphExporter exporter = GraphExporter.create(format,
+                        new Utf8ChannelWriter(Channels.newChannel(exchange.getResponseBody())))) {
+                    analyzer.visitor.getCompactCallGraph().exportTo(exporter);
+                }
+                break;
+            }
+            case "/calls":
+                sendCalls(exchange, analyzer.visitor.getCompactCallGraph(), parameter(parameters, "method", ""));
+                break;
+            default:
+                send(exchange, 404, "Requête inconnue : " + path + "\n");
+        }
+    }
+
+    // Méthodes appelées par chaque méthode déclarée dont le nom qualifié commence par le préfixe
+    private void sendCalls(HttpExchange exchange, CallGraph callGraph, String prefix) throws IOException {
+        StringBuilder json = new StringBuilder("{");
+        for (int node = 0; node < callGraph.getNodeCount(); node++) {
+            if (!callGraph.isDeclared(node) || !callGraph.getName(node).startsWith(prefix)) {
+                continue;
+            }
+            json.append(json.length() > 1 ? ",\n  " : "\n  ").append(ProjectMetrics.jsonString(callGraph.getName(node)))
+                    .append(": [");
+            for (int i = 0; i < callGraph.getOutDegree(node); i++) {
+                json.append(i > 0 ? ", " : "").append(ProjectMetrics.jsonString(callGraph.getName(callGraph.getSuccessor(node, i))));
+            }
+            json.append(']');
+        }
+        send(exchange, 200, "application/json", json.append(json.length() > 1 ? "\n}\n" : "}\n").toString());
+    }
+
+    private void sendStatus(HttpExchange exchange) throws IOException {
+        StringBuilder json = new StringBuilder("{\"memoryLimitBytes\": " + memoryLimit + ", \"projects\": [");
+        synchronized (models) {
+            for (ProjectModel model : models.values()) {
+                json.append(json.charAt(json.length() - 1) == '[' ? "\n  " : ",\n  ")
+                        .append("{\"project\": ").append(ProjectMetrics.jsonString(model.projectPath))
+                        .append(", \"analysisMillis\": ").append(model.analysisMillis)
+                        .append(", \"estimatedBytes\": ").append(model.estimatedBytes)
+                        .append(", \"requests\": ").append(model.requests).append('}');
+            }
+        }
+        send(exchange, 200, "application/json", json.append("]}\n").toString());
+    }
+
+    // Modèle à jour d'un projet (null si l'analyse a échoué), puis éviction des modèles les moins récemment
+    // utilisés tant que la mémoire estimée dépasse la limite
+    private ProjectModel model(String projectPath, boolean force) throws IOException {
+        String key = new File(projectPath).getCanonicalPath();
+        ProjectModel model;
+        synchronized (models) {
+            model = models.get(key);
+            if (model == null) {
+                model = new ProjectModel(key);
+                models.put(key, model);
+            }
+        }
+        boolean analyzed;
+        synchronized (model) {
+            analyzed = model.refresh(force);
+        }
+        synchronized (models) {
+            if (!analyzed) {
+                if (model.analyzer == null) {
+                    models.remove(key);
+                }
+                return null;
+            }
+            evict(model);
+        }
+        return model;
+    }
+
+    private void evict(ProjectModel keep) {
+        long total = 0;
+        for (ProjectModel model : models.values()) {
+            total += model.estimatedBytes;
+        }
+        Iterator<ProjectModel> eldest = models.values().iterator();
+        while (total > memoryLimit && eldest.hasNext()) {
+            ProjectModel model = eldest.next();
+            if (model != keep) {
+                total -= model.estimatedBytes;
+                eldest.remove();
+                System.out.println("Projet retiré du cache : " + model.projectPath);
+            }
+        }
+    }
+
+    // Empreinte des fichiers d'un projet : chemin, taille et date de modification de chacun
+    private static long fingerprint(List<File> javaFiles) {
+        long fingerprint = javaFiles.size();
+        for (File file : javaFiles) {
+            fingerprint = fingerprint * 31 + file.getPath().hashCode();
+            fingerprint = fingerprint * 31 + file.length();
+            fingerprint = fingerprint * 31 + file.lastModified();
+        }
+        return fingerprint;
+    }
+
+    // Estimation grossière de la mémoire occupée par les résultats d'une analyse : entrées des tables par fichier,
+    // classe et méthode (clé, valeur et entrée de HashMap), puis nœuds et arcs du graphe d'appel
+    static long estimateBytes(ClassStructureVisitor visitor) {
+        long entries = visitor.getLinesPerFile().size() + visitor.getLinesPerClass().size() + visitor.getLinesPerMethod().size()
+                + visitor.getMethodsPerClass().size() + visitor.getAttributesPerClass().size() + visitor.getFilesPerClass().size();
+        CallGraph callGraph = visitor.getCompactCallGraph();
+        return entries * 240 + callGraph.getNodeCount() * 200L + callGraph.getEdgeCount() * 8L;
+    }
+
+    private static Map<String, List<String>> parameters(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, List<String>> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, "UTF-8");
+            String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), "UTF-8") : "";
+            parameters.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+
+    private static String parameter(Map<String, List<String>> parameters, String name, String defaultValue) {
+        List<String> values = parameters.get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : defaultValue;
+    }
+
+    private static Writer open(HttpExchange exchange, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        return new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        send(exchange, status, "text/plain", text);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
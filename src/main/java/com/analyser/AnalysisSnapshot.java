@@ -0,0 +1,82 @@
+package com.analyser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// Instantané binaire des résultats complets d'une analyse (compteurs, métriques par classe et par méthode,
+// graphe d'appel), pour comparer deux analyses sans réanalyser. Le format est celui du cache (table de chaînes
+// puis indices, voir ClassStructureVisitor.writeTo), précédé d'un en-tête versionné : le relire ne coûte
+// que la lecture du fichier et la reconstruction des tables.
+public class AnalysisSnapshot {
+
+    private static final int MAGIC = 0x41534E50;  // "ASNP"
+    private static final int VERSION = 1;
+
+    private final String projectPath;
+    private final long createdAt;
+    private final long analysisMillis;
+    private final ClassStructureVisitor results;
+
+    public AnalysisSnapshot(String projectPath, long createdAt, long analysisMillis, ClassStructureVisitor results) {
+        this.projectPath = projectPath;
+        this.createdAt = createdAt;
+        this.analysisMillis = analysisMillis;
+        this.results = results;
+    }
+
+    public String getProjectPath() {
+        return projectPath;
+    }
+
+    // Date de l'analyse (millisecondes depuis l'epoch)
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getAnalysisMillis() {
+        return analysisMillis;
+    }
+
+    public ClassStructureVisitor getResults() {
+        return results;
+    }
+
+    // Écrit l'instantané (dans un fichier temporaire renommé ensuite, pour ne jamais laisser un fichier tronqué)
+    public void save(File file) throws IOException {
+        File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(projectPath);
+            out.writeLong(createdAt);
+            out.writeLong(analysisMillis);
+            results.writeTo(out);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static AnalysisSnapshot load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("ce fichier n'est pas un instantané d'analyse : " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("version d'instantané non prise en charge (" + version + ") : " + file);
+            }
+            String projectPath = in.readUTF();
+            long createdAt = in.readLong();
+            long analysisMillis = in.readLong();
+            return new AnalysisSnapshot(projectPath, createdAt, analysisMillis, ClassStructureVisitor.readFrom(in));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.analyser;
+
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Cache des noms calculés à partir des liaisons JDT. Dans un même environnement de résolution, chaque type
+// et chaque méthode n'a qu'une seule liaison : le nom qualifié d'un ITypeBinding et la signature d'un
+// IMethodBinding ne sont donc calculés qu'une fois, quel que soit le nombre d'appels.
+// Un cache n'est utilisé que par un seul thread (un par lot en mode createASTs).
+public class BindingNameCache {
+
+    private final Map<ITypeBinding, String> typeNames = new IdentityHashMap<>();
+    private final Map<IMethodBinding, MethodName> methodNames = new IdentityHashMap<>();
+
+    // Nom qualifié de l'effacement du type ; nom binaire (Englobant$1, Englobant$1Locale) pour les classes locales
+    // et anonymes et pour les types qu'elles contiennent, qui n'ont pas de nom qualifié. Les portées de
+    // ClassStructureVisitor nomment les types sans liaison de la même façon.
+    public String typeName(ITypeBinding binding) {
+        String name = typeNames.get(binding);
+        if (name == null) {
+            ITypeBinding erasure = binding.getErasure();
+            name = erasure.isAnonymous() || erasure.isLocal() ? "" : erasure.getQualifiedName();
+            if (name.isEmpty()) {
+                name = erasure.getBinaryName() != null ? erasure.getBinaryName() : erasure.getName();
+            }
+            typeNames.put(binding, name);
+        }
+        return name;
+    }
+
+    // Type déclarant et signature (nom et types de paramètres effacés) de la déclaration générique de la méthode
+    public MethodName methodName(IMethodBinding binding) {
+        MethodName name = methodNames.get(binding);
+        if (name == null) {
+            IMethodBinding declaration = binding.getMethodDeclaration();
+            StringBuilder signature = new StringBuilder(declaration.getName()).append('(');
+            ITypeBinding[] parameterTypes = declaration.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    signature.append(',');
+                }
+                signature.append(typeName(parameterTypes[i]));
+            }
+            name = new MethodName(typeName(declaration.getDeclaringClass()), signature.append(')').toString());
+            methodNames.put(binding, name);
+        }
+        return name;
+    }
+
+    public static class MethodName {
+        public final String typeName;
+        public final String signature;
+
+        MethodName(String typeName, String signature) {
+            this.typeName = typeName;
+            this.signature = signature;
+        }
+    }
+}
@@ -1,28 +1,701 @@
 package com.analyser;
 
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 public class CLIApp {
 
+    // Codes de retour du mode non interactif
+    static final int EXIT_OK = 0;
+    static final int EXIT_ANALYSIS_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+    static final int EXIT_OUTPUT_FAILED = 3;
+
+    // Threads du serveur HTTP (les requêtes sur un même projet sont de toute façon traitées l'une après l'autre)
+    private static final int SERVER_THREADS = 4;
+
+    // Valeurs des options, vérifiées une fois au démarrage
+    private static class Settings {
+        int threadCount;
+        long debounceMillis;
+        int couplingTop;
+        Integer methodsThreshold;
+        Double clusterThreshold;
+        GraphExporter.Format exportFormat;
+        ProjectMetrics.Format metricsFormat;
+        List<MetricsQuery.Query> queries = new ArrayList<>();
+        Integer analyticsTop;
+        List<String> entryPoints = new ArrayList<>();
+        boolean lowMemory;
+        long maxFileSize;
+        int maxLiveAsts;
+        Integer profileSlowest;
+        Charset sourceCharset;
+        List<MetricsRollup.Level> rollupLevels = new ArrayList<>();
+        int serverPort;
+        long serverMemory;
+        int diffLimit;
+    }
+
     public static void main(String[] args) {
+        Options options = createOptions();
+
+        CommandLine cmd;
+        Settings settings = new Settings();
+        List<String> projectPaths = new ArrayList<>();
+        // Arguments positionnels pris à tort comme valeur d'une option à valeur facultative (voir optionalNumber)
+        List<String> misplacedPaths = new ArrayList<>();
+        try {
+            cmd = new DefaultParser().parse(options, args);
+            settings.threadCount = Integer.parseInt(cmd.getOptionValue("threads", "1"));
+            if (settings.threadCount < 1) {
+                throw new ParseException("le nombre de threads doit être au moins 1");
+            }
+            settings.debounceMillis = Long.parseLong(cmd.getOptionValue("debounce", "50"));
+            settings.lowMemory = cmd.hasOption("low-memory") || cmd.hasOption("max-file-size") || cmd.hasOption("max-asts");
+            settings.maxFileSize = Long.parseLong(cmd.getOptionValue("max-file-size", "1024")) * 1024;
+            settings.maxLiveAsts = Integer.parseInt(cmd.getOptionValue("max-asts", String.valueOf(settings.threadCount)));
+            if (settings.maxFileSize < 1 || settings.maxLiveAsts < 1) {
+                throw new ParseException("--max-file-size et --max-asts doivent être au moins 1");
+            }
+            if (cmd.hasOption("encoding")) {
+                // Charset.forName lève une IllegalArgumentException pour un encodage inconnu
+                settings.sourceCharset = Charset.forName(cmd.getOptionValue("encoding"));
+            }
+            settings.couplingTop = Integer.parseInt(cmd.getOptionValue("coupling-top", "10"));
+            if (cmd.hasOption("threshold")) {
+                settings.methodsThreshold = Integer.parseInt(cmd.getOptionValue("threshold"));
+            }
+            if (cmd.hasOption("cluster-threshold")) {
+                settings.clusterThreshold = Double.parseDouble(cmd.getOptionValue("cluster-threshold"));
+            }
+            settings.exportFormat = cmd.hasOption("export") ? GraphExporter.Format.fromName(cmd.getOptionValue("export")) : null;
+            String metricsFile = cmd.getOptionValue("metrics", "");
+            settings.metricsFormat = ProjectMetrics.Format.fromName(cmd.getOptionValue("metrics-format",
+                    metricsFile.toLowerCase().endsWith(".csv") ? "csv" : "json"));
+
+            if (cmd.hasOption("call-graph-analytics")) {
+                settings.analyticsTop = optionalNumber(cmd, "call-graph-analytics", 10, misplacedPaths);
+            }
+            if (cmd.hasOption("profile") || cmd.hasOption("profile-json")) {
+                settings.profileSlowest = optionalNumber(cmd, "profile", 10, misplacedPaths);
+            }
+            settings.serverPort = optionalNumber(cmd, "serve", 8421, misplacedPaths);
+            if (settings.serverPort < 0 || settings.serverPort > 65535) {
+                throw new ParseException("port invalide : " + settings.serverPort);
+            }
+            // Par défaut, les modèles en cache peuvent occuper la moitié du tas maximal
+            settings.serverMemory = cmd.hasOption("server-memory")
+                    ? Long.parseLong(cmd.getOptionValue("server-memory")) * 1024 * 1024
+                    : Runtime.getRuntime().maxMemory() / 2;
+            settings.diffLimit = Integer.parseInt(cmd.getOptionValue("diff-limit", "20"));
+            if (cmd.hasOption("rollup")) {
+                for (String level : cmd.getOptionValues("rollup")) {
+                    settings.rollupLevels.add(MetricsRollup.Level.fromName(level));
+                }
+            }
+            if (cmd.hasOption("entry-point")) {
+                settings.entryPoints.addAll(Arrays.asList(cmd.getOptionValues("entry-point")));
+            }
+            if (cmd.hasOption("query")) {
+                for (String query : cmd.getOptionValues("query")) {
+                    settings.queries.add(MetricsQuery.Query.parse(query));
+                }
+            }
+
+            if (cmd.hasOption("project")) {
+                projectPaths.addAll(Arrays.asList(cmd.getOptionValues("project")));
+            }
+            projectPaths.addAll(misplacedPaths);
+            projectPaths.addAll(cmd.getArgList());
+            if (cmd.hasOption("watch") && projectPaths.size() > 1) {
+                throw new ParseException("le mode surveillance ne suit qu'un seul projet");
+            }
+            if (cmd.hasOption("metrics") && projectPaths.isEmpty()) {
+                throw new ParseException("--metrics demande au moins un projet (--project)");
+            }
+        } catch (ParseException | IllegalArgumentException e) {
+            System.err.println("Arguments invalides : " + e.getMessage());
+            new HelpFormatter().printHelp("CLIApp [options] [projet...]", options);
+            System.exit(EXIT_USAGE);
+            return;
+        }
+
+        if (cmd.hasOption("help")) {
+            new HelpFormatter().printHelp("CLIApp [options] [projet...]", options);
+            return;
+        }
+
+        if (cmd.hasOption("serve")) {
+            serve(cmd, settings, projectPaths);
+        } else if (cmd.hasOption("diff")) {
+            // Les projets éventuels sont analysés d'abord (leur instantané peut être l'un des deux comparés)
+            int exitCode = projectPaths.isEmpty() ? EXIT_OK : runBatch(cmd, settings, projectPaths);
+            int diffCode = diffSnapshots(cmd.getOptionValues("diff")[0], cmd.getOptionValues("diff")[1], settings.diffLimit);
+            System.exit(exitCode != EXIT_OK ? exitCode : diffCode);
+        } else if (projectPaths.isEmpty()) {
+            // Sans projet en argument, le chemin et les choix sont demandés à l'utilisateur
+            runInteractive(cmd, settings);
+        } else if (cmd.hasOption("watch")) {
+            watch(newAnalyzer(cmd, settings, null), projectPaths.get(0),
+                    settings.methodsThreshold != null ? settings.methodsThreshold : 10, settings.debounceMillis);
+        } else {
+            System.exit(runBatch(cmd, settings, projectPaths));
+        }
+    }
+
+    private static Options createOptions() {
+        Options options = new Options();
+        options.addOption(Option.builder("p").longOpt("project").hasArg().argName("chemin")
+                .desc("Projet à analyser sans interaction ; option répétable (les chemins peuvent aussi suivre les options)").build());
+        options.addOption(Option.builder("x").longOpt("threshold").hasArg().argName("n")
+                .desc("Seuil pour les classes avec plus de X méthodes (défaut en mode non interactif : 10)").build());
+        options.addOption(Option.builder("m").longOpt("metrics").hasArg().argName("fichier")
+                .desc("Écrit les métriques de chaque projet dans un fichier JSON ou CSV (- pour la sortie standard)").build());
+        options.addOption(Option.builder().longOpt("metrics-format").hasArg().argName("format")
+                .desc("Format des métriques : json ou csv (défaut : d'après l'extension du fichier, sinon json)").build());
+        options.addOption(Option.builder("q").longOpt("quiet")
+                .desc("N'affiche pas les résultats en texte (mode non interactif)").build());
+        options.addOption(Option.builder().longOpt("cluster-threshold").hasArg().argName("seuil")
+                .desc("Seuil de couplage pour regrouper les classes en modules candidats (mode non interactif)").build());
+        options.addOption(Option.builder().longOpt("call-graph")
+                .desc("Affiche le graphe d'appel (mode non interactif)").build());
+        options.addOption(Option.builder().longOpt("query").hasArg().argName("requête")
+                .desc("Requête sur les métriques, type:métrique:paramètre ; types top, percent, percentile, histogram ; "
+                        + "métriques " + String.join(", ", MetricsQuery.Metric.names()) + " ; option répétable").build());
+        options.addOption(Option.builder().longOpt("call-graph-analytics").hasArg().optionalArg(true).argName("k")
+                .desc("Analyse le graphe d'appel : cycles, méthodes jamais appelées ou inaccessibles, k plus grands "
+                        + "fan-in/fan-out (défaut : 10)").build());
+        options.addOption(Option.builder().longOpt("entry-point").hasArg().argName("préfixe")
+                .desc("Préfixe des méthodes considérées comme points d'entrée, en plus des méthodes main ; option répétable").build());
+        options.addOption(Option.builder().longOpt("profile").hasArg().optionalArg(true).argName("n")
+                .desc("Affiche le profil de l'analyse : temps par phase, histogramme de latence par fichier, octets lus "
+                        + "et alloués, n fichiers les plus lents (défaut : 10)").build());
+        options.addOption(Option.builder().longOpt("profile-json").hasArg().argName("fichier")
+                .desc("Écrit le profil de l'analyse dans un fichier JSON").build());
+        options.addOption(Option.builder().longOpt("rollup").hasArg().argName("niveau")
+                .desc("Affiche les métriques agrégées par package ou par module Maven (package ou module) : fichiers, "
+                        + "classes, méthodes, attributs, lignes et couplage ; option répétable").build());
+        options.addOption(Option.builder().longOpt("rollup-csv").hasArg().argName("fichier")
+                .desc("Écrit les métriques agrégées (niveaux de --rollup, sinon package et module) dans un fichier CSV").build());
+        options.addOption(Option.builder().longOpt("serve").hasArg().optionalArg(true).argName("port")
+                .desc("Mode serveur : répond aux requêtes HTTP sur 127.0.0.1 (défaut : port 8421) en gardant en mémoire "
+                        + "les projets déjà analysés ; les projets donnés en argument sont analysés au démarrage").build());
+        options.addOption(Option.builder().longOpt("server-memory").hasArg().argName("Mo")
+                .desc("Mémoire estimée maximale des projets gardés en cache par le serveur (défaut : moitié du tas)").build());
+        options.addOption(Option.builder().longOpt("snapshot").hasArg().argName("fichier")
+                .desc("Enregistre un instantané binaire des résultats (compteurs, métriques par classe, graphe d'appel)").build());
+        options.addOption(Option.builder().longOpt("diff").numberOfArgs(2).argName("ancien> <nouveau")
+                .desc("Compare deux instantanés : compteurs, classes, méthodes et appels ajoutés ou supprimés, "
+                        + "variations des métriques par classe").build());
+        options.addOption(Option.builder().longOpt("diff-limit").hasArg().argName("n")
+                .desc("Nombre maximal d'éléments affichés par liste de différences (défaut : 20)").build());
+        options.addOption(Option.builder("h").longOpt("help")
+                .desc("Affiche cette aide").build());
+        options.addOption(Option.builder("t").longOpt("threads").hasArg().argName("n")
+                .desc("Nombre de threads pour l'analyse (défaut : 1)").build());
+        options.addOption(Option.builder("b").longOpt("batch")
+                .desc("Analyse par lots avec ASTParser.createASTs et un environnement partagé").build());
+        options.addOption(Option.builder().longOpt("no-bindings")
+                .desc("Désactive la résolution des liaisons (métriques syntaxiques uniquement, plus rapide)").build());
+        options.addOption(Option.builder().longOpt("low-memory")
+                .desc("Mode économe en mémoire : au plus --max-asts AST à la fois, fichiers de plus de --max-file-size "
+                        + "analysés par un parcours lexical sans AST (métriques approchées, sans graphe d'appel)").build());
+        options.addOption(Option.builder().longOpt("max-file-size").hasArg().argName("Ko")
+                .desc("Taille au-delà de laquelle un fichier n'est pas parsé en mode économe en mémoire (défaut : 1024 Ko ; "
+                        + "active ce mode)").build());
+        options.addOption(Option.builder().longOpt("max-asts").hasArg().argName("n")
+                .desc("Nombre maximal d'AST en mémoire à la fois en mode économe en mémoire (défaut : nombre de threads ; "
+                        + "active ce mode)").build());
+        options.addOption(Option.builder().longOpt("encoding").hasArg().argName("charset")
+                .desc("Encodage des fichiers sources (défaut : project.build.sourceEncoding du pom.xml du projet, "
+                        + "sinon l'encodage de la plateforme)").build());
+        options.addOption(Option.builder("cp").longOpt("classpath").hasArg().argName("chemins")
+                .desc("Classpath utilisé pour résoudre les liaisons en mode lots").build());
+        options.addOption(Option.builder("c").longOpt("cache").hasArg().argName("fichier")
+                .desc("Cache incrémental : seuls les fichiers modifiés depuis la dernière analyse sont analysés").build());
+        options.addOption(Option.builder().longOpt("include").hasArg().argName("glob")
+                .desc("Motif glob (relatif au projet) des fichiers à analyser ; option répétable").build());
+        options.addOption(Option.builder().longOpt("exclude").hasArg().argName("glob")
+                .desc("Motif glob (relatif au projet) des fichiers ou répertoires à ignorer ; option répétable").build());
+        options.addOption(Option.builder().longOpt("no-default-excludes")
+                .desc("Parcourt aussi les répertoires de build et de gestion de versions (.git, target, node_modules...)").build());
+        options.addOption(Option.builder("w").longOpt("watch")
+                .desc("Surveille le projet et réanalyse les fichiers modifiés à chaque sauvegarde").build());
+        options.addOption(Option.builder().longOpt("debounce").hasArg().argName("ms")
+                .desc("Délai de regroupement des modifications en mode surveillance (défaut : 50 ms)").build());
+        options.addOption(Option.builder("e").longOpt("export").hasArg().argName("format")
+                .desc("Exporte le graphe d'appel en flux pendant l'analyse : dot, graphml ou ndjson").build());
+        options.addOption(Option.builder().longOpt("export-file").hasArg().argName("fichier")
+                .desc("Fichier d'export, sans extension (défaut : Results/callgraph)").build());
+        options.addOption(Option.builder().longOpt("gzip")
+                .desc("Compresse le fichier d'export en gzip").build());
+        options.addOption(Option.builder().longOpt("no-open")
+                .desc("N'ouvre pas l'image du graphe générée (serveur sans affichage)").build());
+        options.addOption(Option.builder().longOpt("line-metrics")
+                .desc("Affiche les lignes physiques, logiques et de commentaires de chaque fichier, classe et méthode").build());
+        options.addOption(Option.builder().longOpt("coupling-top").hasArg().argName("k")
+                .desc("Nombre de paires de classes les plus couplées à afficher (défaut : 10) ; en mode non interactif, "
+                        + "le couplage n'est affiché qu'avec cette option").build());
+
+        return options;
+    }
+
+    // Valeur d'une option dont la valeur est facultative (--call-graph-analytics [k], --profile [n], --serve [port]) :
+    // commons-cli prend l'argument qui suit l'option, même s'il s'agit du chemin d'un projet. Une valeur non
+    // numérique est donc rendue aux arguments positionnels, et l'option garde sa valeur par défaut
+    private static int optionalNumber(CommandLine cmd, String option, int defaultValue, List<String> positional) {
+        String value = cmd.getOptionValue(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!value.matches("\\d+")) {
+            positional.add(value);
+            return defaultValue;
+        }
+        return Integer.parseInt(value);
+    }
+
+    // Analyseur configuré d'après les options communes aux deux modes ; avec plusieurs projets,
+    // le nom du projet distingue son fichier de cache (null pour un seul projet)
+    private static ProjectStaticAnalyzer newAnalyzer(CommandLine cmd, Settings settings, String projectName) {
+        ProjectStaticAnalyzer analyzer = new ProjectStaticAnalyzer();
+        analyzer.setThreadCount(settings.threadCount);
+        analyzer.setBatchParsing(cmd.hasOption("batch"));
+        analyzer.setResolveBindings(!cmd.hasOption("no-bindings"));
+        if (settings.lowMemory) {
+            analyzer.setLowMemoryLimits(settings.maxFileSize, settings.maxLiveAsts);
+        }
+        if (settings.profileSlowest != null) {
+            analyzer.setProfiler(new AnalysisProfiler(settings.profileSlowest));
+        }
+        analyzer.setSourceCharset(settings.sourceCharset);
+        if (cmd.hasOption("classpath")) {
+            analyzer.setClasspathEntries(cmd.getOptionValue("classpath").split(File.pathSeparator));
+        }
+        if (cmd.hasOption("cache")) {
+            analyzer.setCacheFile(new File(withSuffix(cmd.getOptionValue("cache"), projectName)));
+        }
+        if (cmd.hasOption("include")) {
+            analyzer.setIncludePatterns(Arrays.asList(cmd.getOptionValues("include")));
+        }
+        if (cmd.hasOption("exclude")) {
+            analyzer.setExcludePatterns(Arrays.asList(cmd.getOptionValues("exclude")));
+        }
+        analyzer.setDefaultExcludes(!cmd.hasOption("no-default-excludes"));
+        analyzer.setOpenRenderedImage(!cmd.hasOption("no-open"));
+        return analyzer;
+    }
+
+    // Mode non interactif : chaque projet est analysé à son tour dans la même JVM, avec un analyseur neuf ;
+    // un projet en échec n'empêche pas l'analyse des suivants mais fixe le code de retour
+    private static int runBatch(CommandLine cmd, Settings settings, List<String> projectPaths) {
+        int methodsThreshold = settings.methodsThreshold != null ? settings.methodsThreshold : 10;
+        String metricsFile = cmd.getOptionValue("metrics");
+        boolean metricsToStdout = "-".equals(metricsFile);
+        boolean quiet = cmd.hasOption("quiet") || metricsToStdout;
+        // Avec les métriques sur la sortie standard, les messages de l'analyse passent sur la sortie d'erreur
+        PrintStream stdout = System.out;
+        if (metricsToStdout) {
+            System.setOut(System.err);
+        }
+
+        boolean analysisFailed = false;
+        boolean outputFailed = false;
+        List<ProjectMetrics> metrics = new ArrayList<>();
+        try {
+            for (String projectPath : projectPaths) {
+                if (!new File(projectPath).isDirectory()) {
+                    System.err.println("Le chemin spécifié n'est pas un répertoire valide : " + projectPath);
+                    analysisFailed = true;
+                    continue;
+                }
+                // Avec plusieurs projets, chacun a son propre fichier d'export et son propre cache
+                String projectName = projectPaths.size() > 1 ? projectName(projectPath, metrics.size()) : null;
+                ProjectStaticAnalyzer analyzer = newAnalyzer(cmd, settings, projectName);
+                GraphExporter streamingExporter = openStreamingExport(analyzer, cmd, settings, exportFileName(cmd, projectName));
+                outputFailed |= settings.exportFormat != null && streamingExporter == null;
+
+                long start = System.nanoTime();
+                boolean analyzed = analyzer.analyze(projectPath);
+                long analysisMillis = (System.nanoTime() - start) / 1_000_000;
+                outputFailed |= !closeStreamingExport(streamingExporter);
+                if (cmd.hasOption("profile-json")) {
+                    outputFailed |= !writeProfile(analyzer, withSuffix(cmd.getOptionValue("profile-json"), projectName));
+                }
+                if (!analyzed) {
+                    analysisFailed = true;
+                    continue;
+                }
+                metrics.add(new ProjectMetrics(projectPath, analyzer.visitor, methodsThreshold, analysisMillis,
+                        analyzer.getPeakHeapBytes()));
+                if (cmd.hasOption("snapshot")) {
+                    outputFailed |= !analyzer.saveSnapshot(withSuffix(cmd.getOptionValue("snapshot"), projectName));
+                }
+                if (cmd.hasOption("rollup-csv")) {
+                    outputFailed |= !writeRollups(analyzer, projectPath, settings,
+                            withSuffix(cmd.getOptionValue("rollup-csv"), projectName));
+                }
+
+                if (!quiet) {
+                    displayResults(cmd, settings, analyzer, projectPath, methodsThreshold);
+                }
+            }
+        } finally {
+            System.setOut(stdout);
+        }
+
+        if (metricsFile != null) {
+            outputFailed |= !writeMetrics(metrics, settings.metricsFormat, metricsFile);
+        }
+        if (analysisFailed) {
+            return EXIT_ANALYSIS_FAILED;
+        }
+        return outputFailed ? EXIT_OUTPUT_FAILED : EXIT_OK;
+    }
+
+    // Résultats en texte d'un projet, affichés une seule fois après son analyse
+    private static void displayResults(CommandLine cmd, Settings settings, ProjectStaticAnalyzer analyzer,
+                                       String projectPath, int methodsThreshold) {
+        System.out.println("\n--- Résultats de l'analyse : " + projectPath + " ---");
+        analyzer.displayResults(methodsThreshold);
+        if (cmd.hasOption("line-metrics")) {
+            System.out.println("\n--- Métriques de lignes ---");
+            analyzer.displayLineMetrics();
+        }
+        displayQueries(analyzer, settings.queries);
+        displayRollups(analyzer, projectPath, settings.rollupLevels);
+        if (settings.clusterThreshold != null) {
+            System.out.println("\n--- Modules candidats ---");
+            analyzer.displayModules(analyzer.clusterClasses(), settings.clusterThreshold);
+        }
+        if (cmd.hasOption("coupling-top")) {
+            System.out.println("\n--- Couplage entre classes ---");
+            analyzer.displayTopCoupledClasses(settings.couplingTop);
+        }
+        if (cmd.hasOption("call-graph")) {
+            System.out.println("\n--- Graphe d'appel ---");
+            analyzer.displayCallGraph();
+        }
+        if (settings.analyticsTop != null) {
+            System.out.println("\n--- Analyse du graphe d'appel ---");
+            analyzer.displayCallGraphAnalytics(settings.analyticsTop, settings.entryPoints);
+        }
+        System.out.println();
+        analyzer.displayMemoryUsage();
+        if (cmd.hasOption("profile")) {
+            System.out.println("\n--- Profil de l'analyse ---");
+            analyzer.getProfiler().displaySummary();
+        }
+    }
+
+    private static void displayQueries(ProjectStaticAnalyzer analyzer, List<MetricsQuery.Query> queries) {
+        if (queries.isEmpty()) {
+            return;
+        }
+        System.out.println("\n--- Requêtes sur les métriques ---");
+        MetricsQuery metrics = analyzer.getMetricsQuery();
+        for (MetricsQuery.Query query : queries) {
+            System.out.print(metrics.answer(query));
+        }
+    }
+
+    private static void displayRollups(ProjectStaticAnalyzer analyzer, String projectPath, List<MetricsRollup.Level> levels) {
+        for (MetricsRollup.Level level : levels) {
+            System.out.println("\n--- Métriques par " + level.getName() + " ---");
+            MetricsRollup.compute(analyzer.visitor, new File(projectPath), level, analyzer.resolvesCrossFileCalls()).display();
+        }
+    }
+
+    // Métriques agrégées en CSV : niveaux demandés par --rollup, sinon package et module
+    private static boolean writeRollups(ProjectStaticAnalyzer analyzer, String projectPath, Settings settings,
+                                        String rollupFile) {
+        List<MetricsRollup.Level> levels = settings.rollupLevels.isEmpty()
+                ? Arrays.asList(MetricsRollup.Level.values()) : settings.rollupLevels;
+        Path path = Paths.get(rollupFile);
+        try {
+            createParentDirectories(path);
+            try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                boolean header = true;
+                for (MetricsRollup.Level level : levels) {
+                    MetricsRollup.compute(analyzer.visitor, new File(projectPath), level, analyzer.resolvesCrossFileCalls())
+                            .writeCsv(out, header);
+                    header = false;
+                }
+            }
+            System.err.println("Métriques agrégées écrites dans le fichier " + path);
+            if (!analyzer.resolvesCrossFileCalls()) {
+                System.err.println("Colonnes de couplage laissées vides : les appels entre fichiers ne sont résolus "
+                        + "qu'en mode batch (--batch) avec liaisons");
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture des métriques agrégées dans " + rollupFile + " : " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean writeMetrics(List<ProjectMetrics> metrics, ProjectMetrics.Format format, String metricsFile) {
+        try {
+            if ("-".equals(metricsFile)) {
+                ProjectMetrics.write(metrics, format, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                return true;
+            }
+            Path path = Paths.get(metricsFile);
+            createParentDirectories(path);
+            try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                ProjectMetrics.write(metrics, format, out);
+            }
+            System.err.println("Métriques écrites dans le fichier " + path);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture des métriques dans " + metricsFile + " : " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean writeProfile(ProjectStaticAnalyzer analyzer, String profileFile) {
+        Path path = Paths.get(profileFile);
+        try {
+            createParentDirectories(path);
+            try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                analyzer.getProfiler().writeJson(out);
+            }
+            System.err.println("Profil de l'analyse écrit dans le fichier " + path);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture du profil dans " + profileFile + " : " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Nom de répertoire du projet, pour distinguer ses fichiers de sortie
+    private static String projectName(String projectPath, int index) {
+        Path fileName = Paths.get(projectPath).toAbsolutePath().normalize().getFileName();
+        return fileName != null ? fileName.toString() : "projet" + (index + 1);
+    }
+
+    // Ajoute "-suffixe" au nom de fichier, avant son extension éventuelle
+    private static String withSuffix(String fileName, String suffix) {
+        if (suffix == null) {
+            return fileName;
+        }
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= fileName.lastIndexOf(File.separatorChar) + 1) {
+            return fileName + "-" + suffix;
+        }
+        return fileName.substring(0, dot) + "-" + suffix + fileName.substring(dot);
+    }
+
+    private static String exportFileName(CommandLine cmd, String projectName) {
+        String exportFile = cmd.getOptionValue("export-file", "Results/callgraph");
+        return projectName == null ? exportFile : exportFile + "-" + projectName;
+    }
+
+    private static void createParentDirectories(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    // Export en flux : les arcs sont écrits au fur et à mesure que l'analyse les produit (null sans export ou en cas d'erreur)
+    private static GraphExporter openStreamingExport(ProjectStaticAnalyzer analyzer, CommandLine cmd, Settings settings,
+                                                     String exportFile) {
+        if (settings.exportFormat == null) {
+            return null;
+        }
+        boolean gzip = cmd.hasOption("gzip");
+        Path exportPath = Paths.get(exportFile + "." + settings.exportFormat.getExtension() + (gzip ? ".gz" : ""));
+        try {
+            createParentDirectories(exportPath);
+            GraphExporter streamingExporter = GraphExporter.open(settings.exportFormat, exportPath, gzip);
+            analyzer.setStreamingExporter(streamingExporter);
+            System.out.println("Export du graphe d'appel dans le fichier " + exportPath);
+            return streamingExporter;
+        } catch (IOException e) {
+            System.err.println("Impossible de créer le fichier d'export " + exportPath + " : " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean closeStreamingExport(GraphExporter streamingExporter) {
+        if (streamingExporter == null) {
+            return true;
+        }
+        try {
+            streamingExporter.close();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'export du graphe d'appel : " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Mode surveillance : analyse initiale puis mises à jour incrémentales jusqu'à l'arrêt du programme
+    private static void watch(ProjectStaticAnalyzer analyzer, String projectPath, int methodsThreshold, long debounceMillis) {
+        try {
+            new ProjectWatcher(analyzer, new File(projectPath), methodsThreshold, debounceMillis).watch();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la surveillance du projet : " + e.getMessage());
+        }
+    }
+
+    // Compare deux instantanés enregistrés avec --snapshot
+    private static int diffSnapshots(String beforeFile, String afterFile, int limit) {
+        AnalysisSnapshot before;
+        AnalysisSnapshot after;
+        try {
+            before = AnalysisSnapshot.load(new File(beforeFile));
+            after = AnalysisSnapshot.load(new File(afterFile));
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture de l'instantané : " + e.getMessage());
+            return EXIT_ANALYSIS_FAILED;
+        }
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        System.out.println("\n--- Différences entre les instantanés ---");
+        System.out.println("Avant : " + before.getProjectPath() + " (" + dateFormat.format(new Date(before.getCreatedAt())) + ")");
+        System.out.println("Après : " + after.getProjectPath() + " (" + dateFormat.format(new Date(after.getCreatedAt())) + ")");
+        new SnapshotDiff(before.getResults(), after.getResults()).display(limit);
+        return EXIT_OK;
+    }
+
+    // Mode serveur : chaque projet est analysé avec les options de la ligne de commande, puis gardé en cache ;
+    // le serveur tourne jusqu'à l'arrêt du programme
+    private static void serve(CommandLine cmd, Settings settings, List<String> projectPaths) {
+        AnalysisServer server = new AnalysisServer(settings.serverPort, settings.serverMemory, SERVER_THREADS,
+                projectPath -> newAnalyzer(cmd, settings, cmd.hasOption("cache") ? projectName(projectPath, 0) : null));
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Erreur lors du démarrage du serveur : " + e.getMessage());
+            System.exit(EXIT_OUTPUT_FAILED);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        for (String projectPath : projectPaths) {
+            server.preload(projectPath);
+        }
+    }
+
+    // Mode interactif : chemin du projet, seuil et actions demandés sur l'entrée standard
+    private static void runInteractive(CommandLine cmd, Settings settings) {
         Scanner scanner = new Scanner(System.in);
 
         // Demande du chemin du projet
         System.out.print("Entrez le chemin du projet Java à analyser : ");
         String projectPath = scanner.nextLine();
 
-        // Demande du seuil de méthodes pour une classe (paramètre X)
-        System.out.print("Entrez la valeur du seuil pour les classes avec plus de X méthodes : ");
-        int methodsThreshold = scanner.nextInt();
-        scanner.nextLine();  // Consommer le retour à la ligne
+        // Demande du seuil de méthodes pour une classe (paramètre X), s'il n'est pas donné en option
+        int methodsThreshold;
+        if (settings.methodsThreshold != null) {
+            methodsThreshold = settings.methodsThreshold;
+        } else {
+            System.out.print("Entrez la valeur du seuil pour les classes avec plus de X méthodes : ");
+            methodsThreshold = scanner.nextInt();
+            scanner.nextLine();  // Consommer le retour à la ligne
+        }
 
         // Initialisation et analyse
-        ProjectStaticAnalyzer analyzer = new ProjectStaticAnalyzer();
-        analyzer.analyze(projectPath, methodsThreshold);
+        ProjectStaticAnalyzer analyzer = newAnalyzer(cmd, settings, null);
+
+        // Mode surveillance : analyse initiale puis mises à jour incrémentales jusqu'à l'arrêt du programme
+        if (cmd.hasOption("watch")) {
+            watch(analyzer, projectPath, methodsThreshold, settings.debounceMillis);
+            scanner.close();
+            return;
+        }
+
+        // Export en flux : les arcs sont écrits au fur et à mesure que l'analyse les produit
+        GraphExporter streamingExporter = openStreamingExport(analyzer, cmd, settings, exportFileName(cmd, null));
+        boolean analyzed = analyzer.analyze(projectPath);
+        closeStreamingExport(streamingExporter);
+        if (cmd.hasOption("profile-json")) {
+            writeProfile(analyzer, cmd.getOptionValue("profile-json"));
+        }
+        if (!analyzed) {
+            scanner.close();
+            return;
+        }
 
         // Affichage des résultats d'analyse statique
         System.out.println("\n--- Résultats de l'analyse ---");
         analyzer.displayResults(methodsThreshold);
+        analyzer.displayMemoryUsage();
+        if (cmd.hasOption("profile")) {
+            System.out.println("\n--- Profil de l'analyse ---");
+            analyzer.getProfiler().displaySummary();
+        }
+        if (cmd.hasOption("line-metrics")) {
+            System.out.println("\n--- Métriques de lignes ---");
+            analyzer.displayLineMetrics();
+        }
+        displayQueries(analyzer, settings.queries);
+        displayRollups(analyzer, projectPath, settings.rollupLevels);
+        if (cmd.hasOption("rollup-csv")) {
+            writeRollups(analyzer, projectPath, settings, cmd.getOptionValue("rollup-csv"));
+        }
+        if (cmd.hasOption("snapshot")) {
+            analyzer.saveSnapshot(cmd.getOptionValue("snapshot"));
+        }
+
+        // Requêtes sur les métriques, jusqu'à une réponse vide
+        while (true) {
+            System.out.print("\nRequête sur les métriques (ex. top:methods:10, percentile:loc:90, histogram:fan-in:10 ; vide pour continuer) : ");
+            String queryResponse = scanner.nextLine().trim();
+            if (queryResponse.isEmpty()) {
+                break;
+            }
+            try {
+                analyzer.displayQuery(MetricsQuery.Query.parse(queryResponse));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Requête invalide : " + e.getMessage());
+            }
+        }
+
+        // Regroupement des classes en modules candidats, à côté des résultats
+        System.out.print("\nSeuil de couplage pour le regroupement des classes en modules (vide pour ignorer) : ");
+        String clusterThresholdResponse = scanner.nextLine().trim();
+
+        if (!clusterThresholdResponse.isEmpty()) {
+            try {
+                double clusterThreshold = Double.parseDouble(clusterThresholdResponse);
+                System.out.println("\n--- Modules candidats ---");
+                HierarchicalClustering clustering = analyzer.clusterClasses();
+                analyzer.displayModules(clustering, clusterThreshold);
+
+                System.out.print("Voulez-vous exporter le dendrogramme dans un fichier Graphviz (.dot) ? (oui/non) : ");
+                String exportDendrogramResponse = scanner.nextLine().trim().toLowerCase();
+                if (exportDendrogramResponse.equals("oui") || exportDendrogramResponse.equals("o")) {
+                    System.out.print("Entrez le nom du fichier de sortie (sans extension) : ");
+                    analyzer.exportDendrogramToDot(clustering, "Results/" + scanner.nextLine());
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("Seuil de couplage invalide : " + clusterThresholdResponse);
+            }
+        }
 
         // Option pour afficher le graphe d'appel
         System.out.print("\nVoulez-vous afficher le graphe d'appel ? (oui/non) : ");
@@ -33,6 +706,31 @@ public class CLIApp {
             analyzer.displayCallGraph();
         }
 
+        // Option pour analyser le graphe d'appel
+        System.out.print("\nVoulez-vous analyser le graphe d'appel (cycles, méthodes jamais appelées, fan-in/fan-out) ? (oui/non) : ");
+        String analyzeGraphResponse = scanner.nextLine().trim().toLowerCase();
+
+        if (analyzeGraphResponse.equals("oui") || analyzeGraphResponse.equals("o")) {
+            System.out.println("\n--- Analyse du graphe d'appel ---");
+            analyzer.displayCallGraphAnalytics(settings.analyticsTop != null ? settings.analyticsTop : 10, settings.entryPoints);
+        }
+
+        // Option pour afficher et exporter le couplage entre classes
+        System.out.print("\nVoulez-vous afficher le couplage entre classes ? (oui/non) : ");
+        String showCouplingResponse = scanner.nextLine().trim().toLowerCase();
+
+        if (showCouplingResponse.equals("oui") || showCouplingResponse.equals("o")) {
+            System.out.println("\n--- Couplage entre classes ---");
+            analyzer.displayTopCoupledClasses(settings.couplingTop);
+
+            System.out.print("Voulez-vous exporter le graphe de couplage dans un fichier Graphviz (.dot) ? (oui/non) : ");
+            String exportCouplingResponse = scanner.nextLine().trim().toLowerCase();
+            if (exportCouplingResponse.equals("oui") || exportCouplingResponse.equals("o")) {
+                System.out.print("Entrez le nom du fichier de sortie (sans extension) : ");
+                analyzer.exportCouplingGraphToDot("Results/" + scanner.nextLine());
+            }
+        }
+
         // Option pour exporter le graphe d'appel avec Graphviz
         System.out.print("\nVoulez-vous exporter le graphe d'appel dans un fichier Graphviz (.dot) ? (oui/non) : ");
         String exportGraphResponse = scanner.nextLine().trim().toLowerCase();
@@ -52,9 +750,10 @@ public class CLIApp {
                  String generateImageResponse = scanner.nextLine().trim().toLowerCase();
 
                  if (generateImageResponse.equals("oui") || generateImageResponse.equals("o")) {
-                     String imagePath = "Results/" + fileName + ".png";
-                     analyzer.generateGraphImage(filePath, imagePath);
-                     System.out.println("L'image du graphe a été générée : " + imagePath);
+                     // Rendu en arrière-plan depuis le graphe en mémoire ; le programme attend sa fin avant de quitter
+                     CompletableFuture<Path> rendering = analyzer.renderCallGraph(filePath);
+                     System.out.println("Génération de l'image du graphe en cours...");
+                     rendering.join();
                  }
 
         scanner.close();
@@ -0,0 +1,434 @@
+package com.analyser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Graphe d'appel compact : chaque méthode est internée une seule fois dans une table de symboles et reçoit
+// un identifiant entier dense ; les arcs sont stockés dans des tableaux d'entiers extensibles par méthode
+// et dédoublonnés par une table long -> int. Le nom complet "Classe.méthode" n'est construit qu'à la
+// première rencontre d'une méthode, jamais lors des appels suivants.
+public class CallGraph {
+
+    private static final int[] NO_EDGES = new int[0];
+
+    // Table des classes propriétaires des méthodes
+    private final Map<String, Integer> classIds = new HashMap<>();
+    private final List<String> classNames = new ArrayList<>();
+
+    // Table des méthodes : nom complet -> identifiant, et cache (classe, nom court) -> identifiant
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private final Map<String, Map<String, Integer>> memberIds = new HashMap<>();
+    private String[] nodeNames = new String[16];
+    private int[] nodeClasses = new int[16];
+    private int nodeCount = 0;
+
+    // Méthodes déclarées (clés de l'ancienne Map<String, Set<String>>, même sans appel sortant)
+    private final BitSet declared = new BitSet();
+
+    // Listes d'adjacence sortantes et ensemble des arcs (clé = paire source/cible)
+    private int[][] successors = new int[16][];
+    private int[] outDegrees = new int[16];
+    private final LongIntHashMap edges = new LongIntHashMap();
+
+    // Vue Map<String, Set<String>> construite à la demande, invalidée à chaque modification
+    private Map<String, Set<String>> view = null;
+
+    // Observateur des nouvelles méthodes et des nouveaux arcs (export en flux pendant l'analyse)
+    private Listener listener = null;
+
+    public interface Listener {
+        void nodeAdded(int node);
+
+        void edgeAdded(int caller, int callee);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Retourne l'identifiant de la méthode methodName de la classe className, en la créant au besoin
+    public int intern(String className, String methodName) {
+        Map<String, Integer> members = memberIds.get(className);
+        if (members == null) {
+            members = new HashMap<>();
+            memberIds.put(className, members);
+        }
+        Integer id = members.get(methodName);
+        if (id == null) {
+            id = internQualified(className, className + "." + methodName);
+            members.put(methodName, id);
+        }
+        return id;
+    }
+
+    // Retourne l'identifiant d'une méthode dont le nom complet est déjà connu
+    public int internQualified(String className, String qualifiedName) {
+        Integer id = nodeIds.get(qualifiedName);
+        if (id != null) {
+            return id;
+        }
+        if (nodeCount == nodeNames.length) {
+            int capacity = nodeCount << 1;
+            nodeNames = Arrays.copyOf(nodeNames, capacity);
+            nodeClasses = Arrays.copyOf(nodeClasses, capacity);
+            successors = Arrays.copyOf(successors, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+        }
+        int node = nodeCount++;
+        nodeNames[node] = qualifiedName;
+        nodeClasses[node] = internClass(className);
+        successors[node] = NO_EDGES;
+        nodeIds.put(qualifiedName, node);
+        if (listener != null) {
+            listener.nodeAdded(node);
+        }
+        return node;
+    }
+
+    private int internClass(String className) {
+        Integer id = classIds.get(className);
+        if (id == null) {
+            id = classNames.size();
+            classIds.put(className, id);
+            classNames.add(className);
+        }
+        return id;
+    }
+
+    // Retourne l'identifiant d'une méthode, ou -1 si elle est inconnue
+    public int find(String qualifiedName) {
+        Integer id = nodeIds.get(qualifiedName);
+        return id != null ? id : -1;
+    }
+
+    // Marque une méthode comme déclarée (elle apparaît dans le graphe même sans appel sortant)
+    public void declare(int node) {
+        if (!declared.get(node)) {
+            declared.set(node);
+            view = null;
+        }
+    }
+
+    public void undeclare(int node) {
+        if (declared.get(node)) {
+            declared.clear(node);
+            view = null;
+        }
+    }
+
+    public boolean isDeclared(int node) {
+        return declared.get(node);
+    }
+
+    // Ajoute l'arc caller -> callee (la méthode appelante devient déclarée) ; retourne true si l'arc est nouveau
+    public boolean addEdge(int caller, int callee) {
+        declare(caller);
+        if (!edges.put(LongIntHashMap.pair(caller, callee), 1)) {
+            return false;
+        }
+        int degree = outDegrees[caller];
+        int[] targets = successors[caller];
+        if (degree == targets.length) {
+            targets = Arrays.copyOf(targets, Math.max(4, degree << 1));
+            successors[caller] = targets;
+        }
+        targets[degree] = callee;
+        outDegrees[caller] = degree + 1;
+        view = null;
+        if (listener != null) {
+            listener.edgeAdded(caller, callee);
+        }
+        return true;
+    }
+
+    public boolean removeEdge(int caller, int callee) {
+        if (!edges.remove(LongIntHashMap.pair(caller, callee))) {
+            return false;
+        }
+        int[] targets = successors[caller];
+        int degree = outDegrees[caller];
+        for (int i = 0; i < degree; i++) {
+            if (targets[i] == callee) {
+                targets[i] = targets[degree - 1];
+                break;
+            }
+        }
+        outDegrees[caller] = degree - 1;
+        view = null;
+        return true;
+    }
+
+    // Retire des méthodes (et les arcs qui les touchent) puis renumérote les autres de façon dense, dans le même
+    // ordre ; les classes qui n'ont plus de méthode sont retirées de la table des classes. Retourne le nouvel
+    // identifiant de chaque ancienne méthode (-1 si elle a été retirée).
+    public int[] removeNodes(BitSet removed) {
+        int[] mapping = new int[nodeCount];
+        int[] classMapping = new int[classNames.size()];
+        Arrays.fill(classMapping, -1);
+        List<String> keptClasses = new ArrayList<>();
+        int kept = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (removed.get(node)) {
+                mapping[node] = -1;
+                continue;
+            }
+            mapping[node] = kept++;
+            int classId = nodeClasses[node];
+            if (classMapping[classId] < 0) {
+                classMapping[classId] = keptClasses.size();
+                keptClasses.add(classNames.get(classId));
+            }
+        }
+        if (kept == nodeCount) {
+            return mapping;
+        }
+
+        String[] names = new String[Math.max(16, kept)];
+        int[] classes = new int[names.length];
+        int[][] targets = new int[names.length][];
+        int[] degrees = new int[names.length];
+        BitSet keptDeclared = new BitSet();
+        edges.clear();
+        for (int node = 0; node < nodeCount; node++) {
+            int id = mapping[node];
+            if (id < 0) {
+                continue;
+            }
+            names[id] = nodeNames[node];
+            classes[id] = classMapping[nodeClasses[node]];
+            keptDeclared.set(id, declared.get(node));
+            int[] nodeTargets = successors[node];
+            int degree = 0;
+            for (int i = 0; i < outDegrees[node]; i++) {
+                int target = mapping[nodeTargets[i]];
+                if (target >= 0) {
+                    nodeTargets[degree++] = target;
+                    edges.put(LongIntHashMap.pair(id, target), 1);
+                }
+            }
+            targets[id] = degree > 0 ? nodeTargets : NO_EDGES;
+            degrees[id] = degree;
+        }
+        nodeNames = names;
+        nodeClasses = classes;
+        successors = targets;
+        outDegrees = degrees;
+        nodeCount = kept;
+        declared.clear();
+        declared.or(keptDeclared);
+
+        nodeIds.clear();
+        for (int node = 0; node < nodeCount; node++) {
+            nodeIds.put(nodeNames[node], node);
+        }
+        for (Map<String, Integer> members : memberIds.values()) {
+            members.entrySet().removeIf(member -> mapping[member.getValue()] < 0);
+            members.replaceAll((name, id) -> mapping[id]);
+        }
+        memberIds.values().removeIf(Map::isEmpty);
+        classIds.clear();
+        classNames.clear();
+        for (String className : keptClasses) {
+            classIds.put(className, classNames.size());
+            classNames.add(className);
+        }
+        view = null;
+        return mapping;
+    }
+
+    public boolean hasEdge(int caller, int callee) {
+        return edges.containsKey(LongIntHashMap.pair(caller, callee));
+    }
+
+    // Ajoute les méthodes déclarées et les arcs d'un autre graphe (identifiants renumérotés par nom)
+    public void merge(CallGraph other) {
+        int[] mapping = new int[other.nodeCount];
+        for (int node = 0; node < other.nodeCount; node++) {
+            mapping[node] = internQualified(other.getClassName(node), other.nodeNames[node]);
+        }
+        for (int node = 0; node < other.nodeCount; node++) {
+            if (other.declared.get(node)) {
+                declare(mapping[node]);
+            }
+            for (int i = 0; i < other.outDegrees[node]; i++) {
+                addEdge(mapping[node], mapping[other.successors[node][i]]);
+            }
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edges.size();
+    }
+
+    public String getName(int node) {
+        return nodeNames[node];
+    }
+
+    // Classe propriétaire d'une méthode
+    public int getClassId(int node) {
+        return nodeClasses[node];
+    }
+
+    public String getClassName(int node) {
+        return classNames.get(nodeClasses[node]);
+    }
+
+    public int getClassCount() {
+        return classNames.size();
+    }
+
+    public String getClassNameById(int classId) {
+        return classNames.get(classId);
+    }
+
+    public int getOutDegree(int node) {
+        return outDegrees[node];
+    }
+
+    // i-ème méthode appelée par node
+    public int getSuccessor(int node, int index) {
+        return successors[node][index];
+    }
+
+    // Parcourt tous les arcs sans construire de structure intermédiaire
+    public void forEachEdge(EdgeVisitor visitor) {
+        for (int node = 0; node < nodeCount; node++) {
+            int[] targets = successors[node];
+            for (int i = 0; i < outDegrees[node]; i++) {
+                visitor.visit(node, targets[i]);
+            }
+        }
+    }
+
+    public interface EdgeVisitor {
+        void visit(int caller, int callee);
+    }
+
+    // Écrit toutes les méthodes puis tous les arcs dans un exporteur, directement depuis les listes d'adjacence
+    public void exportTo(GraphExporter exporter) throws IOException {
+        for (int node = 0; node < nodeCount; node++) {
+            exporter.node(node, nodeNames[node]);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            int[] targets = successors[node];
+            for (int i = 0; i < outDegrees[node]; i++) {
+                exporter.edge(node, targets[i]);
+            }
+        }
+    }
+
+    // Copie du graphe réduite aux maxNodes méthodes de plus haut degré (appels entrants et sortants)
+    // et aux arcs entre elles ; à degré égal, les méthodes rencontrées en premier sont gardées
+    public CallGraph mostConnected(int maxNodes) {
+        int[] degrees = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            degrees[node] += outDegrees[node];
+            for (int i = 0; i < outDegrees[node]; i++) {
+                degrees[successors[node][i]]++;
+            }
+        }
+        long[] ranked = new long[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            ranked[node] = ((long) degrees[node] << 32) | (Integer.MAX_VALUE - node);
+        }
+        Arrays.sort(ranked);
+        boolean[] kept = new boolean[nodeCount];
+        for (int i = Math.max(0, nodeCount - maxNodes); i < nodeCount; i++) {
+            kept[Integer.MAX_VALUE - (int) ranked[i]] = true;
+        }
+
+        CallGraph copy = new CallGraph();
+        int[] mapping = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (kept[node]) {
+                mapping[node] = copy.internQualified(getClassName(node), nodeNames[node]);
+                if (declared.get(node)) {
+                    copy.declare(mapping[node]);
+                }
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            for (int i = 0; kept[node] && i < outDegrees[node]; i++) {
+                int target = successors[node][i];
+                if (kept[target]) {
+                    copy.addEdge(mapping[node], mapping[target]);
+                }
+            }
+        }
+        return copy;
+    }
+
+    // Vue "méthode -> méthodes appelées" construite à la demande et conservée tant que le graphe ne change pas
+    public Map<String, Set<String>> asMap() {
+        if (view == null) {
+            Map<String, Set<String>> map = new HashMap<>();
+            for (int node = 0; node < nodeCount; node++) {
+                if (!declared.get(node)) {
+                    continue;
+                }
+                Set<String> called = new HashSet<>();
+                for (int i = 0; i < outDegrees[node]; i++) {
+                    called.add(nodeNames[successors[node][i]]);
+                }
+                map.put(nodeNames[node], called);
+            }
+            view = map;
+        }
+        return view;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(classNames.size());
+        for (String className : classNames) {
+            out.writeUTF(className);
+        }
+        out.writeInt(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            out.writeInt(nodeClasses[node]);
+            out.writeUTF(nodeNames[node]);
+            out.writeBoolean(declared.get(node));
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            out.writeInt(outDegrees[node]);
+            for (int i = 0; i < outDegrees[node]; i++) {
+                out.writeInt(successors[node][i]);
+            }
+        }
+    }
+
+    public static CallGraph readFrom(DataInput in) throws IOException {
+        CallGraph graph = new CallGraph();
+        String[] classes = new String[in.readInt()];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = in.readUTF();
+        }
+        int count = in.readInt();
+        for (int node = 0; node < count; node++) {
+            String className = classes[in.readInt()];
+            graph.internQualified(className, in.readUTF());
+            if (in.readBoolean()) {
+                graph.declared.set(node);
+            }
+        }
+        for (int node = 0; node < count; node++) {
+            int degree = in.readInt();
+            for (int i = 0; i < degree; i++) {
+                graph.addEdge(node, in.readInt());
+            }
+        }
+        return graph;
+    }
+}
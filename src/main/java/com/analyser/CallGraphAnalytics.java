@@ -0,0 +1,270 @@
+package com.analyser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+// Analyses du graphe d'appel : composantes fortement connexes (Tarjan itératif), accessibilité depuis les
+// points d'entrée, méthodes jamais appelées et degrés entrants. Tous les parcours sont linéaires (O(N + E))
+// et sans récursion, avec des piles explicites dans des tableaux d'entiers : un graphe profond ne peut pas
+// faire déborder la pile d'appels.
+public class CallGraphAnalytics {
+
+    private final CallGraph callGraph;
+    private final int nodeCount;
+
+    // Calculés à la demande
+    private int[] inDegrees;
+    private int[] components;
+    private int[] componentSizes;
+    private int componentCount = -1;
+
+    public CallGraphAnalytics(CallGraph callGraph) {
+        this.callGraph = callGraph;
+        this.nodeCount = callGraph.getNodeCount();
+    }
+
+    public CallGraph getCallGraph() {
+        return callGraph;
+    }
+
+    // Nombre d'appelants distincts de chaque méthode (les appels récursifs directs ne comptent pas)
+    public int getInDegree(int node) {
+        if (inDegrees == null) {
+            inDegrees = new int[nodeCount];
+            callGraph.forEachEdge((caller, callee) -> {
+                if (caller != callee) {
+                    inDegrees[callee]++;
+                }
+            });
+        }
+        return inDegrees[node];
+    }
+
+    public int getOutDegree(int node) {
+        return callGraph.getOutDegree(node);
+    }
+
+    // Composante fortement connexe de chaque méthode (numérotées dans l'ordre où Tarjan les termine,
+    // c'est-à-dire en ordre topologique inverse du graphe des composantes)
+    public int getComponent(int node) {
+        computeComponents();
+        return components[node];
+    }
+
+    public int getComponentCount() {
+        computeComponents();
+        return componentCount;
+    }
+
+    public int getComponentSize(int component) {
+        computeComponents();
+        return componentSizes[component];
+    }
+
+    // Tarjan itératif : la récursion est remplacée par une pile de méthodes en cours de visite (callStack)
+    // et, pour chacune, la position du prochain successeur à examiner (nextEdge)
+    private void computeComponents() {
+        if (componentCount >= 0) {
+            return;
+        }
+        components = new int[nodeCount];
+        int[] index = new int[nodeCount];
+        int[] lowLink = new int[nodeCount];
+        int[] nextEdge = new int[nodeCount];
+        int[] tarjanStack = new int[nodeCount];
+        int[] callStack = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        Arrays.fill(index, -1);
+        int[] sizes = new int[16];
+        int count = 0;
+        int nextIndex = 0;
+        int tarjanTop = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int callTop = 0;
+            callStack[callTop++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            tarjanStack[tarjanTop++] = root;
+            onStack[root] = true;
+
+            while (callTop > 0) {
+                int node = callStack[callTop - 1];
+                if (nextEdge[node] < callGraph.getOutDegree(node)) {
+                    int successor = callGraph.getSuccessor(node, nextEdge[node]++);
+                    if (index[successor] < 0) {
+                        // "Appel récursif" : le successeur est visité avant de reprendre node
+                        index[successor] = lowLink[successor] = nextIndex++;
+                        tarjanStack[tarjanTop++] = successor;
+                        onStack[successor] = true;
+                        callStack[callTop++] = successor;
+                    } else if (onStack[successor]) {
+                        lowLink[node] = Math.min(lowLink[node], index[successor]);
+                    }
+                    continue;
+                }
+
+                // Tous les successeurs ont été examinés : "retour" vers l'appelant
+                callTop--;
+                if (lowLink[node] == index[node]) {
+                    if (count == sizes.length) {
+                        sizes = Arrays.copyOf(sizes, count << 1);
+                    }
+                    int member;
+                    do {
+                        member = tarjanStack[--tarjanTop];
+                        onStack[member] = false;
+                        components[member] = count;
+                        sizes[count]++;
+                    } while (member != node);
+                    count++;
+                }
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+            }
+        }
+        componentSizes = Arrays.copyOf(sizes, count);
+        componentCount = count;
+    }
+
+    // Cycles d'appels (récursion directe ou mutuelle) : composantes de plusieurs méthodes, ou d'une seule
+    // méthode qui s'appelle elle-même ; les plus grands d'abord, méthodes triées par nom
+    public List<List<String>> getCycles() {
+        computeComponents();
+        List<List<String>> members = new ArrayList<>();
+        int[] cycleOf = new int[componentCount];
+        Arrays.fill(cycleOf, -1);
+        for (int node = 0; node < nodeCount; node++) {
+            int component = components[node];
+            if (componentSizes[component] > 1 || callGraph.hasEdge(node, node)) {
+                if (cycleOf[component] < 0) {
+                    cycleOf[component] = members.size();
+                    members.add(new ArrayList<>(componentSizes[component]));
+                }
+                members.get(cycleOf[component]).add(callGraph.getName(node));
+            }
+        }
+        for (List<String> cycle : members) {
+            Collections.sort(cycle);
+        }
+        members.sort((a, b) -> a.size() != b.size() ? Integer.compare(b.size(), a.size()) : a.get(0).compareTo(b.get(0)));
+        return members;
+    }
+
+    // Points d'entrée : méthodes main(String[]) déclarées, et méthodes déclarées dont le nom commence
+    // par l'un des préfixes donnés (par exemple un package d'API publique)
+    public BitSet findEntryPoints(List<String> prefixes) {
+        BitSet entryPoints = new BitSet(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if (!callGraph.isDeclared(node)) {
+                continue;
+            }
+            String name = callGraph.getName(node);
+            if (isMainMethod(name)) {
+                entryPoints.set(node);
+                continue;
+            }
+            for (String prefix : prefixes) {
+                if (name.startsWith(prefix)) {
+                    entryPoints.set(node);
+                    break;
+                }
+            }
+        }
+        return entryPoints;
+    }
+
+    // Méthodes accessibles transitivement depuis les points d'entrée (parcours en largeur avec une file d'entiers)
+    public BitSet reachableFrom(BitSet entryPoints) {
+        BitSet reached = new BitSet(nodeCount);
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int node = entryPoints.nextSetBit(0); node >= 0; node = entryPoints.nextSetBit(node + 1)) {
+            reached.set(node);
+            queue[tail++] = node;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            int degree = callGraph.getOutDegree(node);
+            for (int i = 0; i < degree; i++) {
+                int successor = callGraph.getSuccessor(node, i);
+                if (!reached.get(successor)) {
+                    reached.set(successor);
+                    queue[tail++] = successor;
+                }
+            }
+        }
+        return reached;
+    }
+
+    // Méthodes déclarées qu'aucune autre méthode n'appelle, hors constructeurs (les instanciations ne sont pas
+    // des arcs du graphe) et points d'entrée. Les appels par polymorphisme sont rattachés à la méthode du type
+    // statique : une redéfinition appelée seulement ainsi figure dans cette liste.
+    public List<String> getUncalledMethods(BitSet entryPoints) {
+        List<String> uncalled = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++) {
+            if (callGraph.isDeclared(node) && !entryPoints.get(node) && getInDegree(node) == 0 && !isConstructor(node)) {
+                uncalled.add(callGraph.getName(node));
+            }
+        }
+        Collections.sort(uncalled);
+        return uncalled;
+    }
+
+    // Méthodes déclarées inaccessibles depuis les points d'entrée (hors constructeurs)
+    public List<String> getUnreachableMethods(BitSet entryPoints) {
+        BitSet reached = reachableFrom(entryPoints);
+        List<String> unreachable = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++) {
+            if (callGraph.isDeclared(node) && !reached.get(node) && !isConstructor(node)) {
+                unreachable.add(callGraph.getName(node));
+            }
+        }
+        Collections.sort(unreachable);
+        return unreachable;
+    }
+
+    public int getDeclaredCount() {
+        int declared = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (callGraph.isDeclared(node)) {
+                declared++;
+            }
+        }
+        return declared;
+    }
+
+    private static boolean isMainMethod(String name) {
+        int open = name.lastIndexOf('(');
+        if (open < 0 || !simpleName(name, open).equals("main")) {
+            return false;
+        }
+        String parameters = name.substring(open + 1, name.length() - 1);
+        return parameters.equals("java.lang.String[]") || parameters.equals("String[]");
+    }
+
+    // Un constructeur porte le nom simple de sa classe
+    private boolean isConstructor(int node) {
+        String name = callGraph.getName(node);
+        int open = name.lastIndexOf('(');
+        if (open < 0) {
+            return false;
+        }
+        String className = callGraph.getClassName(node);
+        int separator = Math.max(className.lastIndexOf('.'), className.lastIndexOf('$'));
+        return simpleName(name, open).equals(className.substring(separator + 1));
+    }
+
+    // Nom simple de la méthode "Classe.nom(...)", dont la parenthèse ouvrante est à la position open
+    private static String simpleName(String name, int open) {
+        return name.substring(name.lastIndexOf('.', open) + 1, open);
+    }
+}
@@ -2,8 +2,15 @@ package com.analyser;
 
 import org.eclipse.jdt.core.dom.*;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -14,35 +21,221 @@ public class ClassStructureVisitor extends ASTVisitor {
     private int attributeCount = 0; 
     private int totalLines = 0; 
     private int maxParameters = 0; 
+    private int physicalLines = 0;  // Lignes physiques, logiques et de commentaires de l'ensemble des fichiers
+    private int logicalLines = 0;
+    private int commentLines = 0;
 
     private Set<String> packageNames = new HashSet<>(); 
+    // Compteurs par classe, indexés par nom qualifié (deux classes de même nom simple ne se remplacent plus)
     private Map<String, Integer> methodsPerClass = new HashMap<>(); 
     private Map<String, Integer> attributesPerClass = new HashMap<>(); 
-    private Map<String, Set<String>> callGraph = new HashMap<>();  // Graphe d'appel (méthode -> méthodes appelées)
+    // Fichier source de chaque type nommé (nom qualifié), pour les regroupements par module
+    private Map<String, String> filesPerClass = new HashMap<>();
+    private CallGraph callGraph = new CallGraph();  // Graphe d'appel (méthode -> méthodes appelées), identifiants entiers
+    // Métriques de lignes par fichier (chemin), par classe (nom qualifié) et par méthode (nom du graphe d'appel)
+    private Map<String, LineMetrics> linesPerFile = new HashMap<>();
+    private Map<String, LineMetrics> linesPerClass = new HashMap<>();
+    private Map<String, LineMetrics> linesPerMethod = new HashMap<>();
 
-    private String currentClassName = null;  
-    private String currentMethodName = null; 
+    // Nom à utiliser pour le type des appels qu'on ne peut pas résoudre (receveur de type inconnu)
+    public static final String UNRESOLVED_TYPE = "?";
+
+    // Méthodes appelées non résolues du fichier en cours, par paire (identifiant du nom, nombre d'arguments) :
+    // la signature "nom(?,?)" n'est construite qu'à la première rencontre, pas à chaque appel
+    private final Map<String, Integer> calledNameIds = new HashMap<>();
+    private final LongIntHashMap unresolvedCalls = new LongIntHashMap();
+    // Imports statiques du fichier en cours : types importés par nom de membre (import static a.B.m;)
+    // et types importés en entier (import static a.B.*;), pour nommer le type des appels non qualifiés
+    private final Map<String, Set<String>> staticImports = new HashMap<>();
+    private final Set<String> staticOnDemandImports = new HashSet<>();
+
+    private String currentClassName = null;  // Dernière classe (TypeDeclaration) englobante (nom qualifié), pour les compteurs
+    private String currentPackage = "";
+
+    // Fichier en cours de visite : numéros de ligne pris dans la table de lignes du CompilationUnit
+    // et nombre cumulé de lignes de commentaires jusqu'à chaque ligne (aucune chaîne construite)
+    private String sourcePath = null;
+    private CompilationUnit unit = null;
+    private int[] commentLinesUpTo = new int[1];
+    private LineMetrics fileLines = null;
+
+    // Pile des portées : un élément par type englobant (y compris énumérations et classes anonymes) et par méthode
+    private final Deque<Scope> scopes = new ArrayDeque<>();
+    private BindingNameCache bindingNames;
+
+    public ClassStructureVisitor() {
+        this(new BindingNameCache());
+    }
+
+    // Le cache de noms peut être partagé entre les fichiers d'un même environnement de résolution
+    public ClassStructureVisitor(BindingNameCache bindingNames) {
+        this.bindingNames = bindingNames;
+    }
+
+    // Chemin du fichier visité, clé des métriques de lignes par fichier
+    public void setSourcePath(String sourcePath) {
+        this.sourcePath = sourcePath;
+    }
+
+    @Override
+    public boolean visit(CompilationUnit node) {
+        unit = node;
+        if (bindingNames == null) {
+            bindingNames = new BindingNameCache();
+        }
+        int lineCount = Math.max(0, node.getLineNumber(node.getStartPosition() + Math.max(0, node.getLength() - 1)));
+        commentLinesUpTo = new int[lineCount + 1];
+        List<?> comments = node.getCommentList();
+        if (comments != null) {
+            for (Object comment : comments) {
+                ASTNode commentNode = (ASTNode) comment;
+                int last = lineOf(commentNode.getStartPosition() + Math.max(0, commentNode.getLength() - 1));
+                for (int line = lineOf(commentNode.getStartPosition()); line <= last; line++) {
+                    commentLinesUpTo[line] = 1;
+                }
+            }
+        }
+        for (int line = 1; line <= lineCount; line++) {
+            commentLinesUpTo[line] += commentLinesUpTo[line - 1];
+        }
+        fileLines = new LineMetrics(lineCount, 0, commentLinesUpTo[lineCount]);
+        return super.visit(node);
+    }
+
+    @Override
+    public void endVisit(CompilationUnit node) {
+        physicalLines += fileLines.physical;
+        logicalLines += fileLines.logical;
+        commentLines += fileLines.comment;
+        if (sourcePath != null) {
+            linesPerFile.put(sourcePath, fileLines);
+        }
+        // Les résultats par fichier sont conservés (file d'attente, cache, mode surveillance) : le visiteur ne doit
+        // plus référencer l'AST ni, par le cache de noms, les liaisons et l'environnement qui les a produites
+        unit = null;
+        bindingNames = null;
+        calledNameIds.clear();
+        unresolvedCalls.clear();
+        staticImports.clear();
+        staticOnDemandImports.clear();
+    }
+
+    // Une ligne logique par instruction (hors blocs) et par déclaration, comptée dans la portée la plus proche
+    @Override
+    public void preVisit(ASTNode node) {
+        if (fileLines != null && isLogicalLine(node)) {
+            (scopes.isEmpty() ? fileLines : scopes.peek().lines).logical++;
+        }
+    }
+
+    private static boolean isLogicalLine(ASTNode node) {
+        if (node instanceof Statement) {
+            return !(node instanceof Block) && !(node instanceof TypeDeclarationStatement);
+        }
+        return node instanceof BodyDeclaration || node instanceof ImportDeclaration || node instanceof PackageDeclaration;
+    }
+
+    // Lignes physiques et de commentaires couvertes par un nœud ; les lignes logiques sont comptées pendant la visite
+    private LineMetrics spanOf(ASTNode node) {
+        LineMetrics lines = new LineMetrics();
+        if (unit != null) {
+            int first = lineOf(node.getStartPosition());
+            int last = lineOf(node.getStartPosition() + Math.max(0, node.getLength() - 1));
+            lines.physical = last - first + 1;
+            lines.comment = commentLinesUpTo[last] - commentLinesUpTo[first - 1];
+        }
+        return lines;
+    }
+
+    private int lineOf(int position) {
+        int line = unit.getLineNumber(position);
+        return line < 1 ? 1 : Math.min(line, commentLinesUpTo.length - 1);
+    }
+
+    // Ferme une portée : ses lignes logiques s'ajoutent à celles de la portée englobante (ou du fichier)
+    private Scope popScope() {
+        Scope scope = scopes.pop();
+        LineMetrics enclosing = scopes.isEmpty() ? fileLines : scopes.peek().lines;
+        if (enclosing != null) {
+            enclosing.logical += scope.lines.logical;
+        }
+        return scope;
+    }
 
     @Override
     public boolean visit(PackageDeclaration node) {
-        packageNames.add(node.getName().getFullyQualifiedName());
+        currentPackage = node.getName().getFullyQualifiedName();
+        packageNames.add(currentPackage);
+        return super.visit(node);
+    }
+
+    @Override
+    public boolean visit(ImportDeclaration node) {
+        if (node.isStatic()) {
+            if (node.isOnDemand()) {
+                staticOnDemandImports.add(node.getName().getFullyQualifiedName());
+            } else if (node.getName().isQualifiedName()) {
+                QualifiedName member = (QualifiedName) node.getName();
+                staticImports.computeIfAbsent(member.getName().getIdentifier(), name -> new HashSet<>())
+                        .add(member.getQualifier().getFullyQualifiedName());
+            }
+        }
         return super.visit(node);
     }
 
     @Override
     public boolean visit(TypeDeclaration node) {
-        currentClassName = node.getName().getIdentifier(); 
+        enterType(node, node.resolveBinding(), node.getName().getIdentifier());
+        currentClassName = scopes.peek().typeName; 
         classCount++; 
         methodsPerClass.put(currentClassName, 0);
         attributesPerClass.put(currentClassName, 0);
         return super.visit(node);
     }
 
+    @Override
+    public void endVisit(TypeDeclaration node) {
+        // Restaure la classe englobante à la fin d'un type imbriqué
+        currentClassName = exitType().previousClassName;
+    }
+
+    @Override
+    public boolean visit(EnumDeclaration node) {
+        enterType(node, node.resolveBinding(), node.getName().getIdentifier());
+        return super.visit(node);
+    }
+
+    @Override
+    public void endVisit(EnumDeclaration node) {
+        exitType();
+    }
+
+    @Override
+    public boolean visit(AnnotationTypeDeclaration node) {
+        enterType(node, node.resolveBinding(), node.getName().getIdentifier());
+        return super.visit(node);
+    }
+
+    @Override
+    public void endVisit(AnnotationTypeDeclaration node) {
+        exitType();
+    }
+
+    @Override
+    public boolean visit(AnonymousClassDeclaration node) {
+        enterType(node, node.resolveBinding(), null);
+        return super.visit(node);
+    }
+
+    @Override
+    public void endVisit(AnonymousClassDeclaration node) {
+        exitType();
+    }
+
     @Override
     public boolean visit(MethodDeclaration node) {
         if (currentClassName != null) {
             methodCount++; 
-            currentMethodName = node.getName().getIdentifier();
             methodsPerClass.put(currentClassName, methodsPerClass.get(currentClassName) + 1);
 
             int parametersCount = node.parameters().size();
@@ -50,32 +243,221 @@ public class ClassStructureVisitor extends ASTVisitor {
                 maxParameters = parametersCount;
             }
 
-            if (node.getBody() != null) {
-                int methodLines = node.getBody().toString().split("\n").length;
-                totalLines += methodLines;
+            if (node.getBody() != null && unit != null) {
+                // Lignes du corps dans le source, d'après la table de lignes (sans réimprimer le sous-arbre)
+                Block body = node.getBody();
+                totalLines += lineOf(body.getStartPosition() + Math.max(0, body.getLength() - 1)) - lineOf(body.getStartPosition()) + 1;
             }
+        }
 
-            // Initialiser l'ensemble des méthodes appelées par cette méthode
-            callGraph.putIfAbsent(getFullMethodName(currentClassName, currentMethodName), new HashSet<>());
+        // Enregistrer la méthode dans le graphe d'appel (nom qualifié et signature), même si elle n'appelle rien
+        Scope type = scopes.isEmpty() ? null : scopes.peek().type;
+        if (type != null) {
+            IMethodBinding binding = node.resolveBinding();
+            int methodId = binding != null
+                    ? internMethod(binding)
+                    : callGraph.intern(type.typeName, declaredSignature(node));
+            callGraph.declare(methodId);
+            type.declaredMethods.computeIfAbsent(node.getName().getIdentifier(), k -> new ArrayList<>())
+                    .add(new int[] {node.parameters().size(), methodId});
+            LineMetrics lines = spanOf(node);
+            linesPerMethod.put(callGraph.getName(methodId), lines);
+            scopes.push(new Scope(type, methodId, lines));
         }
 
         return super.visit(node);
     }
 
+    @Override
+    public void endVisit(MethodDeclaration node) {
+        if (!scopes.isEmpty() && scopes.peek().methodId >= 0) {
+            popScope();
+        }
+    }
+
     @Override
     public boolean visit(MethodInvocation node) {
-        if (currentMethodName != null) {
-            // Récupérer le nom de la méthode appelée
-            String calledMethodName = node.getName().getIdentifier();
-            String calledMethodFullName = getFullMethodName(currentClassName, calledMethodName);
+        Scope scope = scopes.peek();
+        if (scope != null && scope.methodId >= 0) {
+            IMethodBinding binding = node.resolveMethodBinding();
+            Expression receiver = node.getExpression();
+            if (binding != null) {
+                callGraph.addEdge(scope.methodId, internMethod(binding));
+            } else if (receiver == null || receiver instanceof ThisExpression) {
+                // Appel non résolu sur le type courant : résolu par nom et nombre d'arguments à la fin du type
+                scope.type.pendingCalls.add(new PendingCall(scope.methodId, node.getName().getIdentifier(),
+                        node.arguments().size()));
+            } else {
+                callGraph.addEdge(scope.methodId, internUnresolved(node.getName().getIdentifier(), node.arguments().size()));
+            }
+        }
+
+        return super.visit(node);
+    }
 
-            // Ajouter cette relation dans le graphe d'appel
-            callGraph.get(getFullMethodName(currentClassName, currentMethodName)).add(calledMethodFullName);
+    @Override
+    public boolean visit(SuperMethodInvocation node) {
+        Scope scope = scopes.peek();
+        if (scope != null && scope.methodId >= 0) {
+            IMethodBinding binding = node.resolveMethodBinding();
+            callGraph.addEdge(scope.methodId, binding != null
+                    ? internMethod(binding)
+                    : internUnresolved(node.getName().getIdentifier(), node.arguments().size()));
         }
 
         return super.visit(node);
     }
 
+    // Identifiant de la méthode non résolue name avec arity arguments
+    private int internUnresolved(String name, int arity) {
+        Integer nameId = calledNameIds.get(name);
+        if (nameId == null) {
+            nameId = calledNameIds.size();
+            calledNameIds.put(name, nameId);
+        }
+        long key = LongIntHashMap.pair(nameId, arity);
+        int node = unresolvedCalls.get(key, -1);
+        if (node < 0) {
+            node = callGraph.intern(UNRESOLVED_TYPE, unresolvedSignature(name, arity));
+            unresolvedCalls.put(key, node);
+        }
+        return node;
+    }
+
+    private int internMethod(IMethodBinding binding) {
+        BindingNameCache.MethodName name = bindingNames.methodName(binding);
+        return callGraph.intern(name.typeName, name.signature);
+    }
+
+    // Ouvre la portée d'un type ; sans liaison, le nom est reconstruit à partir du package et des types englobants
+    // avec la même convention que BindingNameCache : nom qualifié pour les types de premier niveau et membres,
+    // nom binaire (numéroté comme par le compilateur) pour les classes locales et anonymes et les types qu'elles
+    // contiennent : Englobant$1 pour une classe anonyme, Englobant$1Locale pour une classe locale
+    private void enterType(ASTNode node, ITypeBinding binding, String simpleName) {
+        Scope enclosing = scopes.peek() != null ? scopes.peek().type : null;
+        boolean local = simpleName == null
+                || node instanceof AbstractTypeDeclaration && ((AbstractTypeDeclaration) node).isLocalTypeDeclaration();
+        String binaryName;
+        String typeName;
+        if (enclosing == null) {
+            binaryName = currentPackage.isEmpty() ? simpleName : currentPackage + "." + simpleName;
+            typeName = binaryName;
+        } else if (simpleName == null) {
+            binaryName = enclosing.binaryName + "$" + (++enclosing.anonymousCount);
+            typeName = binaryName;
+        } else if (local) {
+            binaryName = enclosing.binaryName + "$" + enclosing.localTypeCounts.merge(simpleName, 1, Integer::sum) + simpleName;
+            typeName = binaryName;
+        } else {
+            binaryName = enclosing.binaryName + "$" + simpleName;
+            typeName = enclosing.binaryNaming ? binaryName : enclosing.typeName + "." + simpleName;
+        }
+        if (binding != null) {
+            typeName = bindingNames.typeName(binding);
+        }
+        // Les classes anonymes n'ont pas de métriques propres : leurs lignes restent dans la méthode englobante
+        LineMetrics lines = spanOf(node);
+        if (simpleName != null) {
+            linesPerClass.put(typeName, lines);
+            if (sourcePath != null) {
+                filesPerClass.put(typeName, sourcePath);
+            }
+        }
+        scopes.push(new Scope(typeName, binaryName, local || enclosing != null && enclosing.binaryNaming, currentClassName, lines));
+    }
+
+    // Ferme la portée du type courant et résout ses appels en attente : une seule méthode du type avec ce nom
+    // et ce nombre de paramètres, sinon recherche dans le type englobant, sinon une méthode "Type.nom(?)" dans
+    // le type si plusieurs de ses surcharges conviennent, sinon dans le type importé statiquement (voir staticTarget)
+    private Scope exitType() {
+        Scope type = popScope();
+        Scope enclosing = scopes.peek();
+        for (PendingCall call : type.pendingCalls) {
+            int target = -1;
+            List<int[]> candidates = type.declaredMethods.get(call.name);
+            if (candidates != null) {
+                for (int[] candidate : candidates) {
+                    if (candidate[0] == call.arity) {
+                        target = target == -1 ? candidate[1] : -2;
+                    }
+                }
+            }
+            if (target >= 0) {
+                callGraph.addEdge(call.caller, target);
+            } else if (candidates == null && enclosing != null) {
+                enclosing.type.pendingCalls.add(call);
+            } else if (target == -2) {
+                callGraph.addEdge(call.caller, callGraph.intern(type.typeName, unresolvedSignature(call.name, call.arity)));
+            } else {
+                String importedType = staticTarget(call.name);
+                callGraph.addEdge(call.caller, importedType != null
+                        ? callGraph.intern(importedType, unresolvedSignature(call.name, call.arity))
+                        : internUnresolved(call.name, call.arity));
+            }
+        }
+        return type;
+    }
+
+    // Type d'une méthode appelée sans qualification et déclarée par aucun type englobant : celui qui l'importe
+    // statiquement par son nom s'il est unique, sinon le seul type importé statiquement en entier (null sinon :
+    // méthode héritée ou importée de façon ambiguë, jamais attribuée au type appelant)
+    private String staticTarget(String name) {
+        Set<String> types = staticImports.get(name);
+        if (types != null) {
+            return types.size() == 1 ? types.iterator().next() : null;
+        }
+        return staticOnDemandImports.size() == 1 ? staticOnDemandImports.iterator().next() : null;
+    }
+
+    // Signature d'une méthode déclarée sans liaison : types des paramètres tels qu'écrits, sans arguments génériques
+    private static String declaredSignature(MethodDeclaration node) {
+        StringBuilder signature = new StringBuilder(node.getName().getIdentifier()).append('(');
+        List<?> parameters = node.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            SingleVariableDeclaration parameter = (SingleVariableDeclaration) parameters.get(i);
+            if (i > 0) {
+                signature.append(',');
+            }
+            appendTypeName(signature, parameter.getType());
+            for (int d = 0; d < parameter.getExtraDimensions(); d++) {
+                signature.append("[]");
+            }
+            if (parameter.isVarargs()) {
+                signature.append("[]");
+            }
+        }
+        return signature.append(')').toString();
+    }
+
+    private static void appendTypeName(StringBuilder out, Type type) {
+        if (type.isParameterizedType()) {
+            appendTypeName(out, ((ParameterizedType) type).getType());
+        } else if (type.isArrayType()) {
+            ArrayType arrayType = (ArrayType) type;
+            appendTypeName(out, arrayType.getElementType());
+            for (int d = 0; d < arrayType.getDimensions(); d++) {
+                out.append("[]");
+            }
+        } else if (type.isSimpleType()) {
+            out.append(((SimpleType) type).getName().getFullyQualifiedName());
+        } else if (type.isQualifiedType()) {
+            QualifiedType qualifiedType = (QualifiedType) type;
+            appendTypeName(out, qualifiedType.getQualifier());
+            out.append('.').append(qualifiedType.getName().getIdentifier());
+        } else {
+            out.append(type.toString());
+        }
+    }
+
+    // Signature d'une méthode appelée dont seuls le nom et le nombre d'arguments sont connus
+    private static String unresolvedSignature(String name, int arity) {
+        StringBuilder signature = new StringBuilder(name).append('(');
+        for (int i = 0; i < arity; i++) {
+            signature.append(i > 0 ? ",?" : "?");
+        }
+        return signature.append(')').toString();
+    }
+
     @Override
     public boolean visit(FieldDeclaration node) {
         if (currentClassName != null) {
@@ -86,9 +468,268 @@ public class ClassStructureVisitor extends ASTVisitor {
         return super.visit(node);
     }
 
-    // Méthode utilitaire pour obtenir le nom complet de la méthode (classe.méthode)
-    private String getFullMethodName(String className, String methodName) {
-        return className + "." + methodName;
+    // Fusionne dans ce visiteur les résultats d'un autre visiteur (un fichier analysé séparément).
+    // Les fichiers doivent être fusionnés dans l'ordre de parcours : comme dans visit(TypeDeclaration),
+    // une classe redéclarée plus loin remplace les compteurs de la précédente.
+    public void merge(ClassStructureVisitor other) {
+        classCount += other.classCount;
+        methodCount += other.methodCount;
+        attributeCount += other.attributeCount;
+        totalLines += other.totalLines;
+        maxParameters = Math.max(maxParameters, other.maxParameters);
+        physicalLines += other.physicalLines;
+        logicalLines += other.logicalLines;
+        commentLines += other.commentLines;
+
+        packageNames.addAll(other.packageNames);
+        methodsPerClass.putAll(other.methodsPerClass);
+        attributesPerClass.putAll(other.attributesPerClass);
+        filesPerClass.putAll(other.filesPerClass);
+        linesPerFile.putAll(other.linesPerFile);
+        linesPerClass.putAll(other.linesPerClass);
+        linesPerMethod.putAll(other.linesPerMethod);
+        callGraph.merge(other.callGraph);
+    }
+
+    // Portée d'un type (methodId = -1) ou d'une méthode de ce type
+    private static class Scope {
+        final Scope type;
+        final String typeName;
+        final int methodId;
+        final String previousClassName;
+        final LineMetrics lines;
+
+        // Pour les portées de type : méthodes déclarées (nom -> {nombre de paramètres, identifiant}) et appels à résoudre
+        final Map<String, List<int[]>> declaredMethods;
+        final List<PendingCall> pendingCalls;
+        // Nom binaire du type (pour nommer ses types locaux et anonymes), et nommage binaire de ses types imbriqués
+        // (type local ou anonyme, ou contenu dans l'un d'eux) ; numéros de ses classes anonymes et locales par nom
+        final String binaryName;
+        final boolean binaryNaming;
+        final Map<String, Integer> localTypeCounts;
+        int anonymousCount = 0;
+
+        Scope(String typeName, String binaryName, boolean binaryNaming, String previousClassName, LineMetrics lines) {
+            this.type = this;
+            this.typeName = typeName;
+            this.binaryName = binaryName;
+            this.binaryNaming = binaryNaming;
+            this.localTypeCounts = new HashMap<>();
+            this.methodId = -1;
+            this.previousClassName = previousClassName;
+            this.lines = lines;
+            this.declaredMethods = new HashMap<>();
+            this.pendingCalls = new ArrayList<>();
+        }
+
+        Scope(Scope type, int methodId, LineMetrics lines) {
+            this.type = type;
+            this.typeName = type.typeName;
+            this.binaryName = type.binaryName;
+            this.binaryNaming = type.binaryNaming;
+            this.localTypeCounts = null;
+            this.methodId = methodId;
+            this.previousClassName = type.previousClassName;
+            this.lines = lines;
+            this.declaredMethods = null;
+            this.pendingCalls = null;
+        }
+    }
+
+    private static class PendingCall {
+        final int caller;
+        final String name;
+        final int arity;
+
+        PendingCall(int caller, String name, int arity) {
+            this.caller = caller;
+            this.name = name;
+            this.arity = arity;
+        }
+    }
+
+    // Ajoute (sign = 1) ou retire (sign = -1) les compteurs globaux d'un autre visiteur ; utilisé par IncrementalModel,
+    // qui gère lui-même les packages, les classes et le graphe d'appel
+    void addCounts(ClassStructureVisitor other, int sign) {
+        classCount += sign * other.classCount;
+        methodCount += sign * other.methodCount;
+        attributeCount += sign * other.attributeCount;
+        totalLines += sign * other.totalLines;
+        physicalLines += sign * other.physicalLines;
+        logicalLines += sign * other.logicalLines;
+        commentLines += sign * other.commentLines;
+    }
+
+    void setMaxParameters(int maxParameters) {
+        this.maxParameters = maxParameters;
+    }
+
+    // Résultats d'une analyse lexicale (LexicalScanner), ajoutés au fil du parcours d'un fichier sans AST
+    void addPackage(String packageName) {
+        packageNames.add(packageName);
+    }
+
+    void addClass(String className) {
+        classCount++;
+        methodsPerClass.put(className, 0);
+        attributesPerClass.put(className, 0);
+    }
+
+    void addMethod(String className, int parametersCount, int bodyLines) {
+        methodCount++;
+        methodsPerClass.merge(className, 1, Integer::sum);
+        maxParameters = Math.max(maxParameters, parametersCount);
+        totalLines += bodyLines;
+    }
+
+    void addAttribute(String className) {
+        attributeCount++;
+        attributesPerClass.merge(className, 1, Integer::sum);
+    }
+
+    void addTypeLines(String typeName, LineMetrics lines) {
+        linesPerClass.put(typeName, lines);
+        if (sourcePath != null) {
+            filesPerClass.put(typeName, sourcePath);
+        }
+    }
+
+    void addFileLines(LineMetrics lines) {
+        physicalLines += lines.physical;
+        logicalLines += lines.logical;
+        commentLines += lines.comment;
+        if (sourcePath != null) {
+            linesPerFile.put(sourcePath, lines);
+        }
+    }
+
+    // Écrit les résultats sous forme binaire compacte : chaque nom n'est écrit qu'une fois dans une table
+    // de chaînes, puis référencé par son indice
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(classCount);
+        out.writeInt(methodCount);
+        out.writeInt(attributeCount);
+        out.writeInt(totalLines);
+        out.writeInt(maxParameters);
+        out.writeInt(physicalLines);
+        out.writeInt(logicalLines);
+        out.writeInt(commentLines);
+
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (String name : packageNames) {
+            internString(name, stringIds, strings);
+        }
+        for (String name : methodsPerClass.keySet()) {
+            internString(name, stringIds, strings);
+        }
+        for (String name : attributesPerClass.keySet()) {
+            internString(name, stringIds, strings);
+        }
+        for (Map.Entry<String, String> entry : filesPerClass.entrySet()) {
+            internString(entry.getKey(), stringIds, strings);
+            internString(entry.getValue(), stringIds, strings);
+        }
+        for (String name : linesPerFile.keySet()) {
+            internString(name, stringIds, strings);
+        }
+        for (String name : linesPerClass.keySet()) {
+            internString(name, stringIds, strings);
+        }
+        for (String name : linesPerMethod.keySet()) {
+            internString(name, stringIds, strings);
+        }
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+
+        out.writeInt(packageNames.size());
+        for (String name : packageNames) {
+            out.writeInt(stringIds.get(name));
+        }
+        writeCounts(out, methodsPerClass, stringIds);
+        writeCounts(out, attributesPerClass, stringIds);
+        out.writeInt(filesPerClass.size());
+        for (Map.Entry<String, String> entry : filesPerClass.entrySet()) {
+            out.writeInt(stringIds.get(entry.getKey()));
+            out.writeInt(stringIds.get(entry.getValue()));
+        }
+        writeLines(out, linesPerFile, stringIds);
+        writeLines(out, linesPerClass, stringIds);
+        writeLines(out, linesPerMethod, stringIds);
+        callGraph.writeTo(out);
+    }
+
+    // Relit des résultats écrits par writeTo
+    public static ClassStructureVisitor readFrom(DataInput in) throws IOException {
+        ClassStructureVisitor result = new ClassStructureVisitor();
+        result.classCount = in.readInt();
+        result.methodCount = in.readInt();
+        result.attributeCount = in.readInt();
+        result.totalLines = in.readInt();
+        result.maxParameters = in.readInt();
+        result.physicalLines = in.readInt();
+        result.logicalLines = in.readInt();
+        result.commentLines = in.readInt();
+
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+
+        int packageCount = in.readInt();
+        for (int i = 0; i < packageCount; i++) {
+            result.packageNames.add(strings[in.readInt()]);
+        }
+        readCounts(in, result.methodsPerClass, strings);
+        readCounts(in, result.attributesPerClass, strings);
+        int fileCount = in.readInt();
+        for (int i = 0; i < fileCount; i++) {
+            result.filesPerClass.put(strings[in.readInt()], strings[in.readInt()]);
+        }
+        readLines(in, result.linesPerFile, strings);
+        readLines(in, result.linesPerClass, strings);
+        readLines(in, result.linesPerMethod, strings);
+        result.callGraph = CallGraph.readFrom(in);
+        return result;
+    }
+
+    private static void internString(String string, Map<String, Integer> stringIds, List<String> strings) {
+        if (!stringIds.containsKey(string)) {
+            stringIds.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static void writeCounts(DataOutput out, Map<String, Integer> counts, Map<String, Integer> stringIds) throws IOException {
+        out.writeInt(counts.size());
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            out.writeInt(stringIds.get(entry.getKey()));
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static void readCounts(DataInput in, Map<String, Integer> counts, String[] strings) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            counts.put(strings[in.readInt()], in.readInt());
+        }
+    }
+
+    private static void writeLines(DataOutput out, Map<String, LineMetrics> lines, Map<String, Integer> stringIds) throws IOException {
+        out.writeInt(lines.size());
+        for (Map.Entry<String, LineMetrics> entry : lines.entrySet()) {
+            out.writeInt(stringIds.get(entry.getKey()));
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    private static void readLines(DataInput in, Map<String, LineMetrics> lines, String[] strings) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            lines.put(strings[in.readInt()], LineMetrics.readFrom(in));
+        }
     }
 
     // Récupère le nombre total de classes
@@ -111,6 +752,36 @@ public class ClassStructureVisitor extends ASTVisitor {
         return totalLines;
     }
 
+    // Récupère le nombre de lignes physiques de l'ensemble des fichiers
+    public int getPhysicalLines() {
+        return physicalLines;
+    }
+
+    // Récupère le nombre de lignes logiques (instructions et déclarations)
+    public int getLogicalLines() {
+        return logicalLines;
+    }
+
+    // Récupère le nombre de lignes de commentaires
+    public int getCommentLines() {
+        return commentLines;
+    }
+
+    // Récupère les métriques de lignes par fichier
+    public Map<String, LineMetrics> getLinesPerFile() {
+        return linesPerFile;
+    }
+
+    // Récupère les métriques de lignes par classe (nom qualifié)
+    public Map<String, LineMetrics> getLinesPerClass() {
+        return linesPerClass;
+    }
+
+    // Récupère les métriques de lignes par méthode (nom du graphe d'appel)
+    public Map<String, LineMetrics> getLinesPerMethod() {
+        return linesPerMethod;
+    }
+
     // Récupère le nombre maximal de paramètres dans une méthode
     public int getMaxParameters() {
         return maxParameters;
@@ -126,13 +797,23 @@ public class ClassStructureVisitor extends ASTVisitor {
         return attributesPerClass;
     }
 
+    // Récupère le fichier source de chaque type nommé (nom qualifié)
+    public Map<String, String> getFilesPerClass() {
+        return filesPerClass;
+    }
+
     // Récupère la liste des packages
     public Set<String> getPackageNames() {
         return packageNames;
     }
 
-    // Récupère le graphe d'appel
+    // Récupère le graphe d'appel sous forme de Map (vue construite à la demande, à ne pas modifier)
     public Map<String, Set<String>> getCallGraph() {
+        return callGraph.asMap();
+    }
+
+    // Récupère le graphe d'appel compact (identifiants entiers)
+    public CallGraph getCompactCallGraph() {
         return callGraph;
     }
 }
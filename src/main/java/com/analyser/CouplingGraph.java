@@ -0,0 +1,158 @@
+package com.analyser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+// Graphe de couplage entre classes, dérivé du graphe d'appel : le couplage de la paire {A, B} est le nombre
+// d'appels (arcs du graphe d'appel) entre des méthodes de A et de B, dans les deux sens, divisé par le nombre
+// total d'appels entre classes différentes. Seules les paires effectivement couplées sont stockées, dans une
+// table creuse indexée par la paire d'identifiants de classes : aucune matrice N x N n'est construite.
+public class CouplingGraph {
+
+    private final CallGraph callGraph;
+    // Paire (plus petit identifiant, plus grand identifiant) -> nombre d'appels
+    private final LongIntHashMap pairCalls = new LongIntHashMap();
+    private long totalCalls = 0;
+
+    private CouplingGraph(CallGraph callGraph) {
+        this.callGraph = callGraph;
+    }
+
+    // Calcule le couplage en un seul parcours des arcs ; les appels internes à une classe
+    // et les appels vers un type non résolu sont ignorés
+    public static CouplingGraph fromCallGraph(CallGraph callGraph) {
+        CouplingGraph coupling = new CouplingGraph(callGraph);
+        callGraph.forEachEdge((caller, callee) -> {
+            int from = callGraph.getClassId(caller);
+            int to = callGraph.getClassId(callee);
+            if (from == to || isUnresolved(callGraph, from) || isUnresolved(callGraph, to)) {
+                return;
+            }
+            coupling.pairCalls.increment(LongIntHashMap.pair(Math.min(from, to), Math.max(from, to)), 1);
+            coupling.totalCalls++;
+        });
+        return coupling;
+    }
+
+    private static boolean isUnresolved(CallGraph callGraph, int classId) {
+        return ClassStructureVisitor.UNRESOLVED_TYPE.equals(callGraph.getClassNameById(classId));
+    }
+
+    // Nombre de paires de classes couplées
+    public int getPairCount() {
+        return pairCalls.size();
+    }
+
+    // Nombre total d'appels entre classes différentes
+    public long getTotalCalls() {
+        return totalCalls;
+    }
+
+    public int getClassCount() {
+        return callGraph.getClassCount();
+    }
+
+    public String getClassName(int classId) {
+        return callGraph.getClassNameById(classId);
+    }
+
+    public int getCallCount(int firstClass, int secondClass) {
+        return pairCalls.get(LongIntHashMap.pair(Math.min(firstClass, secondClass), Math.max(firstClass, secondClass)), 0);
+    }
+
+    public double getCoupling(int firstClass, int secondClass) {
+        return totalCalls == 0 ? 0 : (double) getCallCount(firstClass, secondClass) / totalCalls;
+    }
+
+    // Parcourt les paires couplées (identifiants de classes et nombre d'appels)
+    public void forEachPair(PairVisitor visitor) {
+        pairCalls.forEach((key, calls) -> visitor.visit(LongIntHashMap.first(key), LongIntHashMap.second(key), calls));
+    }
+
+    public interface PairVisitor {
+        void visit(int firstClass, int secondClass, int calls);
+    }
+
+    // Les k paires les plus couplées, par couplage décroissant (tas borné à k éléments : O(P log k))
+    public List<CoupledPair> getTopPairs(int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<CoupledPair> heap = new PriorityQueue<>(k + 1);
+        forEachPair((first, second, calls) -> {
+            if (heap.size() < k || calls > heap.peek().calls) {
+                heap.add(new CoupledPair(getClassName(first), getClassName(second), calls, (double) calls / totalCalls));
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+        });
+        List<CoupledPair> top = new ArrayList<>(heap);
+        Collections.sort(top, Collections.reverseOrder());
+        return top;
+    }
+
+    // Exporte le graphe de couplage (non orienté, arêtes étiquetées par le couplage) au format DOT
+    public void exportToDot(String fileName) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(fileName + ".dot")), StandardCharsets.UTF_8))) {
+            writer.write("graph CouplingGraph {\n");
+            IOException[] error = {null};
+            forEachPair((first, second, calls) -> {
+                if (error[0] != null) {
+                    return;
+                }
+                try {
+                    writer.write("\"" + getClassName(first) + "\" -- \"" + getClassName(second) + "\" [label=\""
+                            + String.format(Locale.ROOT, "%.4f", (double) calls / totalCalls) + "\", weight=" + calls + "];\n");
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            writer.write("}\n");
+        }
+    }
+
+    // Paire de classes couplées ; l'ordre naturel est celui du nombre d'appels puis des noms
+    public static class CoupledPair implements Comparable<CoupledPair> {
+        public final String firstClass;
+        public final String secondClass;
+        public final int calls;
+        public final double coupling;
+
+        CoupledPair(String firstClass, String secondClass, int calls, double coupling) {
+            this.firstClass = firstClass;
+            this.secondClass = secondClass;
+            this.calls = calls;
+            this.coupling = coupling;
+        }
+
+        @Override
+        public int compareTo(CoupledPair other) {
+            if (calls != other.calls) {
+                return Integer.compare(calls, other.calls);
+            }
+            int byFirst = other.firstClass.compareTo(firstClass);
+            return byFirst != 0 ? byFirst : other.secondClass.compareTo(secondClass);
+        }
+
+        @Override
+        public String toString() {
+            return firstClass + " <-> " + secondClass + " : " + calls + " appels ("
+                    + String.format(Locale.ROOT, "%.4f", coupling) + ")";
+        }
+    }
+}
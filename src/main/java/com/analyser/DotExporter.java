@@ -0,0 +1,47 @@
+package com.analyser;
+
+import java.io.IOException;
+
+// Format DOT (Graphviz) : n12 [label="..."]; puis n12 -> n5;
+class DotExporter implements GraphExporter {
+
+    private final Utf8ChannelWriter out;
+
+    DotExporter(Utf8ChannelWriter out) throws IOException {
+        this.out = out;
+        out.write("digraph CallGraph {\n");
+    }
+
+    @Override
+    public void node(int id, String name) throws IOException {
+        out.write('n');
+        out.writeInt(id);
+        out.write(" [label=\"");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c);
+        }
+        out.write("\"];\n");
+    }
+
+    @Override
+    public void edge(int source, int target) throws IOException {
+        out.write('n');
+        out.writeInt(source);
+        out.write(" -> n");
+        out.writeInt(target);
+        out.write(";\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write("}\n");
+        } finally {
+            out.close();
+        }
+    }
+}
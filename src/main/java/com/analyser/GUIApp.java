@@ -3,14 +3,26 @@ package com.analyser;
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class GUIApp {
 
     private JFrame frame;
     private JTextField projectPathField;
     private JTextField methodsThresholdField;
+    private JTextField clusterThresholdField;
     private JTextArea resultsArea;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private JButton analyzeButton;
+    private JButton cancelButton;
+    private JComboBox<String> queryKindBox;
+    private JComboBox<String> queryMetricBox;
+    private JTextField queryParameterField;
     private ProjectStaticAnalyzer analyzer; // Ajout d'une instance de ProjectStaticAnalyzer
+    private AnalysisWorker worker; // Analyse en cours (null si aucune)
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new GUIApp().createAndShowGUI());
@@ -19,14 +31,14 @@ public class GUIApp {
     public void createAndShowGUI() {
         frame = new JFrame("Analyseur Statique de Projet Java");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(600, 400);
+        frame.setSize(700, 500);
 
         JPanel panel = new JPanel();
         panel.setLayout(new BorderLayout());
 
         // Haut de l'interface : sélection du projet et seuil de méthodes
         JPanel inputPanel = new JPanel();
-        inputPanel.setLayout(new GridLayout(3, 2, 10, 10));
+        inputPanel.setLayout(new GridLayout(4, 2, 10, 10));
 
         JLabel projectPathLabel = new JLabel("Chemin du projet : ");
         projectPathField = new JTextField();
@@ -37,12 +49,17 @@ public class GUIApp {
         JLabel methodsThresholdLabel = new JLabel("Seuil de méthodes (X) : ");
         methodsThresholdField = new JTextField();
 
+        JLabel clusterThresholdLabel = new JLabel("Seuil de couplage des modules (optionnel) : ");
+        clusterThresholdField = new JTextField();
+
         inputPanel.add(projectPathLabel);
         inputPanel.add(projectPathField);
         inputPanel.add(new JLabel());  // Espace vide
         inputPanel.add(browseButton);
         inputPanel.add(methodsThresholdLabel);
         inputPanel.add(methodsThresholdField);
+        inputPanel.add(clusterThresholdLabel);
+        inputPanel.add(clusterThresholdField);
 
         panel.add(inputPanel, BorderLayout.NORTH);
 
@@ -52,18 +69,52 @@ public class GUIApp {
         JScrollPane scrollPane = new JScrollPane(resultsArea);
         panel.add(scrollPane, BorderLayout.CENTER);
 
-        // Bas de l'interface : boutons d'action
+        // Bas de l'interface : avancement de l'analyse et boutons d'action
+        JPanel southPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel progressPanel = new JPanel(new BorderLayout(10, 0));
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        statusLabel = new JLabel(" ");
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressPanel.add(statusLabel, BorderLayout.EAST);
+        southPanel.add(progressPanel, BorderLayout.NORTH);
+
+        // Requêtes sur les métriques du dernier projet analysé (top-K, top N%, percentile, histogramme)
+        JPanel queryPanel = new JPanel();
+        queryKindBox = new JComboBox<>(new String[] {"top", "percent", "percentile", "histogram"});
+        queryMetricBox = new JComboBox<>(MetricsQuery.Metric.names().toArray(new String[0]));
+        queryParameterField = new JTextField("10", 5);
+        JButton queryButton = new JButton("Interroger");
+        queryButton.addActionListener(e -> queryMetrics());
+        queryPanel.add(new JLabel("Métriques : "));
+        queryPanel.add(queryKindBox);
+        queryPanel.add(queryMetricBox);
+        queryPanel.add(queryParameterField);
+        queryPanel.add(queryButton);
+        southPanel.add(queryPanel, BorderLayout.CENTER);
+
         JPanel buttonPanel = new JPanel();
-        JButton analyzeButton = new JButton("Analyser");
+        analyzeButton = new JButton("Analyser");
         analyzeButton.addActionListener(e -> analyzeProject());
 
+        cancelButton = new JButton("Annuler");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelAnalysis());
+
         JButton exportButton = new JButton("Exporter Graphe");
         exportButton.addActionListener(e -> exportGraph());
 
+        JButton analyticsButton = new JButton("Analyser Graphe");
+        analyticsButton.addActionListener(e -> analyzeCallGraph());
+
         buttonPanel.add(analyzeButton);
+        buttonPanel.add(cancelButton);
         buttonPanel.add(exportButton);
+        buttonPanel.add(analyticsButton);
+        southPanel.add(buttonPanel, BorderLayout.SOUTH);
 
-        panel.add(buttonPanel, BorderLayout.SOUTH);
+        panel.add(southPanel, BorderLayout.SOUTH);
 
         frame.add(panel);
         frame.setVisible(true);
@@ -96,15 +147,46 @@ public class GUIApp {
             return;
         }
 
-        // Initialisation et analyse
-        analyzer = new ProjectStaticAnalyzer();
-        analyzer.analyze(projectPath, methodsThreshold);
+        String clusterThresholdText = clusterThresholdField.getText().trim();
+        Double clusterThreshold = null;
+        if (!clusterThresholdText.isEmpty()) {
+            try {
+                clusterThreshold = Double.parseDouble(clusterThresholdText);
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(frame, "Veuillez entrer un nombre valide pour le seuil de couplage.", "Erreur", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+
+        // Analyse en arrière-plan : l'interface reste utilisable et l'analyse peut être annulée
+        analyzer = null;
+        resultsArea.setText("");
+        analyzeButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        progressBar.setValue(0);
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Parcours du projet...");
+        statusLabel.setText(" ");
+        worker = new AnalysisWorker(new ProjectStaticAnalyzer(), projectPath, methodsThreshold, clusterThreshold);
+        worker.execute();
+    }
+
+    private void cancelAnalysis() {
+        if (worker != null) {
+            cancelButton.setEnabled(false);
+            progressBar.setString("Annulation...");
+            worker.analyzer.cancel();
+        }
+    }
 
-        // Affiche les résultats dans l'interface graphique
+    // Affiche les résultats dans l'interface graphique
+    private void displayResults(int methodsThreshold, Double clusterThreshold, List<List<String>> modules) {
         resultsArea.setText("");
         resultsArea.append("--- Résultats de l'analyse ---\n");
         resultsArea.append("Nombre de classes : " + analyzer.visitor.getClassCount() + "\n");
         resultsArea.append("Nombre total de lignes de code : " + analyzer.visitor.getTotalLines() + "\n");
+        resultsArea.append("Lignes physiques : " + analyzer.visitor.getPhysicalLines() + ", lignes logiques : "
+            + analyzer.visitor.getLogicalLines() + ", lignes de commentaires : " + analyzer.visitor.getCommentLines() + "\n");
         resultsArea.append("Nombre total de méthodes : " + analyzer.visitor.getMethodCount() + "\n");
         resultsArea.append("Nombre total de packages : " + analyzer.visitor.getPackageNames().size() + "\n");
         resultsArea.append("Nombre moyen de méthodes par classe : " + 
@@ -118,6 +200,144 @@ public class GUIApp {
         analyzer.visitor.getMethodsPerClass().entrySet().stream()
             .filter(entry -> entry.getValue() > methodsThreshold)
             .forEach(entry -> resultsArea.append(entry.getKey() + " : " + entry.getValue() + " méthodes\n"));
+
+        // Modules candidats : dendrogramme des classes coupé au seuil de couplage
+        if (modules != null) {
+            resultsArea.append("\n--- Modules candidats (seuil de couplage " + clusterThreshold + ") : " + modules.size() + " modules ---\n");
+            if (!analyzer.resolvesCrossFileCalls()) {
+                resultsArea.append(ProjectStaticAnalyzer.INCOMPLETE_COUPLING_WARNING + "\n");
+            }
+            for (int i = 0; i < modules.size(); i++) {
+                resultsArea.append("Module " + (i + 1) + " (" + modules.get(i).size() + " classes) : " + modules.get(i) + "\n");
+            }
+        }
+    }
+
+    // Avancement publié par l'analyse : fichiers traités et totaux partiels au moment de la publication
+    private static class Progress {
+        final int analyzedFiles;
+        final int totalFiles;
+        final int classCount;
+        final int methodCount;
+        final int totalLines;
+
+        Progress(int analyzedFiles, int totalFiles, ClassStructureVisitor visitor) {
+            this.analyzedFiles = analyzedFiles;
+            this.totalFiles = totalFiles;
+            this.classCount = visitor.getClassCount();
+            this.methodCount = visitor.getMethodCount();
+            this.totalLines = visitor.getTotalLines();
+        }
+    }
+
+    // Analyse (et regroupement en modules) hors du thread de l'interface ; l'avancement est publié à chaque fichier
+    // et affiché au plus une fois par rafraîchissement de l'interface
+    private class AnalysisWorker extends SwingWorker<Boolean, Progress> {
+
+        private final ProjectStaticAnalyzer analyzer;
+        private final String projectPath;
+        private final int methodsThreshold;
+        private final Double clusterThreshold;
+        private final long startTime = System.nanoTime();
+        private List<List<String>> modules;
+
+        AnalysisWorker(ProjectStaticAnalyzer analyzer, String projectPath, int methodsThreshold, Double clusterThreshold) {
+            this.analyzer = analyzer;
+            this.projectPath = projectPath;
+            this.methodsThreshold = methodsThreshold;
+            this.clusterThreshold = clusterThreshold;
+        }
+
+        @Override
+        protected Boolean doInBackground() {
+            // Le listener est appelé par le thread qui fusionne les résultats : le visiteur peut y être lu
+            analyzer.setProgressListener((analyzedFiles, totalFiles) ->
+                    publish(new Progress(analyzedFiles, totalFiles, analyzer.visitor)));
+            if (!analyzer.analyze(projectPath)) {
+                return false;
+            }
+            if (clusterThreshold != null) {
+                modules = analyzer.clusterClasses().cut(clusterThreshold);
+            }
+            return true;
+        }
+
+        @Override
+        protected void process(List<Progress> chunks) {
+            // Des publications peuvent encore arriver après la fin de l'analyse : done() affiche alors le résultat
+            if (isDone()) {
+                return;
+            }
+            Progress progress = chunks.get(chunks.size() - 1);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            progressBar.setIndeterminate(false);
+            progressBar.setMaximum(progress.totalFiles);
+            progressBar.setValue(progress.analyzedFiles);
+            progressBar.setString(progress.analyzedFiles + " / " + progress.totalFiles + " fichiers");
+            statusLabel.setText(String.format("%.1f fichiers/s", progress.analyzedFiles / Math.max(seconds, 1e-3)));
+            resultsArea.setText("--- Analyse en cours (résultats partiels) ---\n"
+                    + "Fichiers analysés : " + progress.analyzedFiles + "\n"
+                    + "Nombre de classes : " + progress.classCount + "\n"
+                    + "Nombre total de méthodes : " + progress.methodCount + "\n"
+                    + "Nombre total de lignes de code : " + progress.totalLines + "\n");
+        }
+
+        @Override
+        protected void done() {
+            worker = null;
+            analyzeButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            progressBar.setIndeterminate(false);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+
+            boolean analyzed;
+            try {
+                analyzed = get();
+            } catch (InterruptedException | ExecutionException e) {
+                analyzed = false;
+                JOptionPane.showMessageDialog(frame, "Erreur lors de l'analyse : " + e.getCause(), "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+
+            if (analyzer.isCancelled()) {
+                progressBar.setString("Analyse annulée");
+                resultsArea.append("\nAnalyse annulée.\n");
+            } else if (!analyzed) {
+                progressBar.setString("");
+                JOptionPane.showMessageDialog(frame, "Le projet n'a pas pu être analysé : répertoire invalide ou sans fichier Java.", "Erreur", JOptionPane.ERROR_MESSAGE);
+            } else {
+                GUIApp.this.analyzer = analyzer;
+                progressBar.setMaximum(1);
+                progressBar.setValue(1);
+                progressBar.setString(String.format("Analyse terminée en %.1f s", seconds));
+                statusLabel.setText(String.format("Pic du tas : %.0f Mo", analyzer.getPeakHeapBytes() / (1024.0 * 1024.0)));
+                displayResults(methodsThreshold, clusterThreshold, modules);
+            }
+        }
+    }
+
+    private void queryMetrics() {
+        if (analyzer == null) {
+            JOptionPane.showMessageDialog(frame, "Veuillez d'abord analyser un projet.", "Erreur", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        MetricsQuery.Query query;
+        try {
+            query = MetricsQuery.Query.parse(queryKindBox.getSelectedItem() + ":" + queryMetricBox.getSelectedItem()
+                    + ":" + queryParameterField.getText().trim());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, "Requête invalide : " + e.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        resultsArea.append("\n--- " + query + " ---\n" + analyzer.getMetricsQuery().answer(query));
+    }
+
+    // Cycles d'appels, méthodes jamais appelées ou inaccessibles depuis les méthodes main, fan-in/fan-out
+    private void analyzeCallGraph() {
+        if (analyzer == null) {
+            JOptionPane.showMessageDialog(frame, "Veuillez d'abord analyser un projet.", "Erreur", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        resultsArea.append("\n--- Analyse du graphe d'appel ---\n" + analyzer.describeCallGraphAnalytics(10, new ArrayList<>()));
     }
 
     private void exportGraph() {
@@ -145,9 +365,14 @@ public class GUIApp {
         int choice = JOptionPane.showConfirmDialog(frame, "Voulez-vous générer l'image du graphe maintenant ?", "Générer image", JOptionPane.YES_NO_OPTION);
         
         if (choice == JOptionPane.YES_OPTION) {
-            String imagePath = filePath + ".png";
-            analyzer.generateGraphImage(filePath, imagePath);
-            JOptionPane.showMessageDialog(frame, "L'image du graphe a été générée : " + imagePath, "Image Générée", JOptionPane.INFORMATION_MESSAGE);
+            // Rendu en arrière-plan : l'interface reste utilisable, le message s'affiche à la fin du rendu
+            analyzer.renderCallGraph(filePath).thenAccept(imagePath -> SwingUtilities.invokeLater(() -> {
+                if (imagePath != null) {
+                    JOptionPane.showMessageDialog(frame, "L'image du graphe a été générée : " + imagePath, "Image Générée", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(frame, "Erreur lors de la génération de l'image du graphe.", "Erreur", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
         }
     }
 }
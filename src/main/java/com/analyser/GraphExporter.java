@@ -0,0 +1,58 @@
+package com.analyser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Export en flux d'un graphe orienté : chaque nœud est écrit une seule fois avec son nom, avant les arcs
+// qui l'utilisent, et chaque arc ne référence que les identifiants. Rien n'est conservé en mémoire :
+// l'exporteur peut recevoir les arcs au fur et à mesure de l'analyse (voir CallGraph.Listener).
+public interface GraphExporter extends Closeable {
+
+    void node(int id, String name) throws IOException;
+
+    void edge(int source, int target) throws IOException;
+
+    // Formats disponibles ; l'extension n'inclut pas le suffixe .gz de la sortie compressée
+    enum Format {
+        DOT("dot"),
+        GRAPHML("graphml"),
+        NDJSON("ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name) || format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Format d'export inconnu : " + name);
+        }
+    }
+
+    // Ouvre un exporteur vers un fichier, éventuellement compressé en gzip
+    static GraphExporter open(Format format, Path path, boolean gzip) throws IOException {
+        return create(format, Utf8ChannelWriter.open(path, gzip));
+    }
+
+    // Exporteur vers un flux déjà ouvert (fermé avec l'exporteur)
+    static GraphExporter create(Format format, Utf8ChannelWriter writer) throws IOException {
+        switch (format) {
+            case GRAPHML:
+                return new GraphMLExporter(writer);
+            case NDJSON:
+                return new NdjsonExporter(writer);
+            default:
+                return new DotExporter(writer);
+        }
+    }
+}
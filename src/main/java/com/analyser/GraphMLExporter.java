@@ -0,0 +1,59 @@
+package com.analyser;
+
+import java.io.IOException;
+
+// Format GraphML : un élément node (nom dans une donnée "name") par méthode, un élément edge par appel
+class GraphMLExporter implements GraphExporter {
+
+    private final Utf8ChannelWriter out;
+
+    GraphMLExporter(Utf8ChannelWriter out) throws IOException {
+        this.out = out;
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        out.write("  <key id=\"name\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>\n");
+        out.write("  <graph id=\"CallGraph\" edgedefault=\"directed\">\n");
+    }
+
+    @Override
+    public void node(int id, String name) throws IOException {
+        out.write("    <node id=\"n");
+        out.writeInt(id);
+        out.write("\"><data key=\"name\">");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            switch (c) {
+                case '<':
+                    out.write("&lt;");
+                    break;
+                case '>':
+                    out.write("&gt;");
+                    break;
+                case '&':
+                    out.write("&amp;");
+                    break;
+                default:
+                    out.write(c);
+            }
+        }
+        out.write("</data></node>\n");
+    }
+
+    @Override
+    public void edge(int source, int target) throws IOException {
+        out.write("    <edge source=\"n");
+        out.writeInt(source);
+        out.write("\" target=\"n");
+        out.writeInt(target);
+        out.write("\"/>\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write("  </graph>\n</graphml>\n");
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.analyser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Rendu d'un graphe d'appel en image, directement depuis le graphe en mémoire (sans fichier .dot intermédiaire)
+public interface GraphRenderer {
+
+    enum ImageFormat {
+        PNG("png"),
+        SVG("svg");
+
+        private final String extension;
+
+        ImageFormat(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    // Nom du moteur, pour les messages
+    String getName();
+
+    // Nombre de méthodes au-delà duquel le graphe doit être réduit avant le rendu avec ce moteur
+    int getMaxNodes();
+
+    void render(CallGraph graph, ImageFormat format, Path output) throws IOException;
+
+    // Le programme dot local s'il est installé, sinon le moteur embarqué de graphviz-java
+    static GraphRenderer detect() {
+        return NativeDotRenderer.isAvailable() ? new NativeDotRenderer() : new GraphvizJavaRenderer();
+    }
+}
@@ -0,0 +1,40 @@
+package com.analyser;
+
+import guru.nidi.graphviz.attribute.Label;
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.engine.Graphviz;
+import guru.nidi.graphviz.model.Factory;
+import guru.nidi.graphviz.model.MutableGraph;
+import guru.nidi.graphviz.model.MutableNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Rendu par graphviz-java quand dot n'est pas installé : le modèle est construit en mémoire à partir du graphe
+// d'appel (sans relire de fichier .dot). Ce moteur est lent sur les gros graphes, d'où les limites de taille.
+class GraphvizJavaRenderer implements GraphRenderer {
+
+    private static final int MAX_NODES = 300;
+
+    @Override
+    public String getName() {
+        return "graphviz-java";
+    }
+
+    @Override
+    public int getMaxNodes() {
+        return MAX_NODES;
+    }
+
+    @Override
+    public void render(CallGraph graph, ImageFormat format, Path output) throws IOException {
+        MutableGraph model = Factory.mutGraph("CallGraph").setDirected(true);
+        MutableNode[] nodes = new MutableNode[graph.getNodeCount()];
+        for (int node = 0; node < nodes.length; node++) {
+            nodes[node] = Factory.mutNode("n" + node).add(Label.of(graph.getName(node)));
+            model.add(nodes[node]);
+        }
+        graph.forEachEdge((caller, callee) -> nodes[caller].addLink(nodes[callee]));
+        Graphviz.fromGraph(model).render(format == ImageFormat.SVG ? Format.SVG : Format.PNG).toFile(output.toFile());
+    }
+}
@@ -0,0 +1,241 @@
+package com.analyser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Regroupement hiérarchique ascendant des classes selon leur couplage, en lien moyen : la similarité de deux
+// groupes X et Y est la somme des appels entre leurs classes divisée par |X| * |Y| (puis par le nombre total
+// d'appels entre classes, comme le couplage). Le lien moyen étant réductible, l'algorithme de la chaîne des
+// plus proches voisins produit le même dendrogramme que l'algorithme naïf en O(n³) : chaque groupe ne garde
+// que ses voisins couplés (table creuse), et trouver le plus proche voisin ne coûte que son degré.
+// Les classes sans aucun couplage restent des feuilles isolées : le dendrogramme est alors une forêt.
+public class HierarchicalClustering {
+
+    private final CouplingGraph coupling;
+    private final int leafCount;
+
+    // Fusion k : groupes fusionnés (identifiants < leafCount pour les classes, leafCount + i pour la fusion i)
+    private int[] mergeLeft;
+    private int[] mergeRight;
+    private int[] mergeSize;
+    private double[] mergeSimilarity;
+    private int mergeCount = 0;
+
+    private HierarchicalClustering(CouplingGraph coupling) {
+        this.coupling = coupling;
+        this.leafCount = coupling.getClassCount();
+        int capacity = Math.max(0, leafCount - 1);
+        mergeLeft = new int[capacity];
+        mergeRight = new int[capacity];
+        mergeSize = new int[capacity];
+        mergeSimilarity = new double[capacity];
+    }
+
+    public static HierarchicalClustering averageLinkage(CouplingGraph coupling) {
+        HierarchicalClustering clustering = new HierarchicalClustering(coupling);
+        clustering.build();
+        return clustering;
+    }
+
+    private void build() {
+        int maxClusters = Math.max(1, 2 * leafCount - 1);
+        // Voisins couplés de chaque groupe actif : identifiant du voisin -> nombre d'appels ; null si fusionné
+        LongIntHashMap[] links = new LongIntHashMap[maxClusters];
+        int[] sizes = new int[maxClusters];
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            links[leaf] = new LongIntHashMap(4);
+            sizes[leaf] = 1;
+        }
+        coupling.forEachPair((first, second, calls) -> {
+            links[first].put(second, calls);
+            links[second].put(first, calls);
+        });
+
+        int[] chain = new int[Math.max(1, leafCount)];
+        int depth = 0;
+        int nextStart = 0;
+        int nextId = leafCount;
+        int[] best = new int[1];
+        double[] bestSimilarity = new double[1];
+        while (true) {
+            if (depth == 0) {
+                // Un groupe sans voisin n'en gagne jamais : le parcours des points de départ est monotone
+                while (nextStart < nextId && (links[nextStart] == null || links[nextStart].size() == 0)) {
+                    nextStart++;
+                }
+                if (nextStart == nextId) {
+                    break;
+                }
+                chain[depth++] = nextStart;
+            }
+
+            int current = chain[depth - 1];
+            int previous = depth > 1 ? chain[depth - 2] : -1;
+            // Plus proche voisin ; en cas d'égalité, le prédécesseur dans la chaîne puis le plus petit identifiant
+            best[0] = -1;
+            bestSimilarity[0] = -1;
+            links[current].forEach((key, calls) -> {
+                int neighbour = (int) key;
+                double similarity = (double) calls / ((double) sizes[current] * sizes[neighbour]);
+                if (similarity > bestSimilarity[0] || (similarity == bestSimilarity[0] && best[0] != previous
+                        && (neighbour == previous || neighbour < best[0]))) {
+                    bestSimilarity[0] = similarity;
+                    best[0] = neighbour;
+                }
+            });
+
+            if (best[0] == previous) {
+                depth -= 2;
+                merge(links, sizes, previous, current, nextId, bestSimilarity[0]);
+                nextId++;
+            } else {
+                chain[depth++] = best[0];
+            }
+        }
+    }
+
+    // Fusionne deux groupes réciproquement plus proches voisins ; les voisins sont additionnés (lien moyen)
+    private void merge(LongIntHashMap[] links, int[] sizes, int left, int right, int merged, double similarity) {
+        LongIntHashMap base = links[left].size() >= links[right].size() ? links[left] : links[right];
+        LongIntHashMap other = base == links[left] ? links[right] : links[left];
+        base.remove(left);
+        base.remove(right);
+        other.forEach((key, calls) -> {
+            if (key != left && key != right) {
+                base.increment(key, calls);
+            }
+        });
+        base.forEach((key, calls) -> {
+            LongIntHashMap neighbourLinks = links[(int) key];
+            neighbourLinks.remove(left);
+            neighbourLinks.remove(right);
+            neighbourLinks.put(merged, calls);
+        });
+        links[left] = null;
+        links[right] = null;
+        links[merged] = base;
+        sizes[merged] = sizes[left] + sizes[right];
+
+        mergeLeft[mergeCount] = left;
+        mergeRight[mergeCount] = right;
+        mergeSize[mergeCount] = sizes[merged];
+        mergeSimilarity[mergeCount] = coupling.getTotalCalls() == 0 ? 0 : similarity / coupling.getTotalCalls();
+        mergeCount++;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    // Nombre de fusions du dendrogramme (le groupe créé par la fusion k a l'identifiant getLeafCount() + k)
+    public int getMergeCount() {
+        return mergeCount;
+    }
+
+    public int getMergeLeft(int merge) {
+        return mergeLeft[merge];
+    }
+
+    public int getMergeRight(int merge) {
+        return mergeRight[merge];
+    }
+
+    public int getMergeSize(int merge) {
+        return mergeSize[merge];
+    }
+
+    // Similarité (lien moyen, en unités de couplage) des deux groupes au moment de la fusion
+    public double getMergeSimilarity(int merge) {
+        return mergeSimilarity[merge];
+    }
+
+    // Coupe le dendrogramme : les groupes fusionnés avec une similarité au moins égale au seuil forment un module.
+    // Le lien moyen n'ayant pas d'inversion, l'ordre de parcours des fusions est indifférent.
+    // Retourne les modules d'au moins deux classes, du plus grand au plus petit.
+    public List<List<String>> cut(double threshold) {
+        int[] parent = new int[leafCount];
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            parent[leaf] = leaf;
+        }
+        // Feuille représentative de chaque groupe
+        int[] representative = new int[leafCount + mergeCount];
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            representative[leaf] = leaf;
+        }
+        for (int merge = 0; merge < mergeCount; merge++) {
+            int left = representative[mergeLeft[merge]];
+            int right = representative[mergeRight[merge]];
+            representative[leafCount + merge] = left;
+            if (mergeSimilarity[merge] >= threshold) {
+                parent[find(parent, right)] = find(parent, left);
+            }
+        }
+
+        List<List<String>> members = new ArrayList<>(Collections.nCopies(leafCount, (List<String>) null));
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            int root = find(parent, leaf);
+            if (members.get(root) == null) {
+                members.set(root, new ArrayList<>());
+            }
+            members.get(root).add(coupling.getClassName(leaf));
+        }
+        List<List<String>> modules = new ArrayList<>();
+        for (List<String> module : members) {
+            if (module != null && module.size() > 1) {
+                Collections.sort(module);
+                modules.add(module);
+            }
+        }
+        modules.sort((a, b) -> a.size() != b.size() ? Integer.compare(b.size(), a.size()) : a.get(0).compareTo(b.get(0)));
+        return modules;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    // Exporte le dendrogramme au format DOT : les classes couplées sont les feuilles, chaque fusion un nœud
+    // étiqueté par sa similarité
+    public void exportToDot(String fileName) throws IOException {
+        boolean[] inTree = new boolean[leafCount];
+        for (int merge = 0; merge < mergeCount; merge++) {
+            markLeaf(inTree, mergeLeft[merge]);
+            markLeaf(inTree, mergeRight[merge]);
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(fileName + ".dot")), StandardCharsets.UTF_8))) {
+            writer.write("digraph Dendrogram {\n");
+            for (int leaf = 0; leaf < leafCount; leaf++) {
+                if (inTree[leaf]) {
+                    writer.write("n" + leaf + " [label=\"" + coupling.getClassName(leaf) + "\", shape=box];\n");
+                }
+            }
+            for (int merge = 0; merge < mergeCount; merge++) {
+                int node = leafCount + merge;
+                writer.write("n" + node + " [label=\"" + String.format(Locale.ROOT, "%.6f", mergeSimilarity[merge]) + "\"];\n");
+                writer.write("n" + node + " -> n" + mergeLeft[merge] + ";\n");
+                writer.write("n" + node + " -> n" + mergeRight[merge] + ";\n");
+            }
+            writer.write("}\n");
+        }
+    }
+
+    private void markLeaf(boolean[] inTree, int cluster) {
+        if (cluster < leafCount) {
+            inTree[cluster] = true;
+        }
+    }
+}
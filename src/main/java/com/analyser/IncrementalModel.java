@@ -0,0 +1,266 @@
+package com.analyser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// Totaux d'un projet maintenus de façon incrémentale à partir des résultats par fichier.
+// Remplacer un fichier retire d'abord sa contribution (compteurs, packages, classes, arcs du graphe d'appel)
+// puis ajoute la nouvelle, sans refusionner les autres fichiers. Les éléments partagés entre plusieurs fichiers
+// sont comptés par référence ; pour une classe déclarée dans plusieurs fichiers, le dernier fichier
+// dans l'ordre d'ajout l'emporte, comme dans ClassStructureVisitor.merge. Les méthodes du graphe d'appel
+// qu'aucun fichier ne référence plus sont retirées du graphe (les autres sont renumérotées).
+public class IncrementalModel {
+
+    private final ClassStructureVisitor totals;
+
+    private final Map<File, FileEntry> files = new HashMap<>();
+    private long nextOrder = 0;
+
+    private final Map<String, Integer> packageRefs = new HashMap<>();
+    private final Map<String, TreeMap<Long, ClassStructureVisitor>> classOwners = new HashMap<>();
+    private final Map<String, TreeMap<Long, ClassStructureVisitor>> classLineOwners = new HashMap<>();
+    private final Map<String, TreeMap<Long, ClassStructureVisitor>> classFileOwners = new HashMap<>();
+    private final Map<String, TreeMap<Long, ClassStructureVisitor>> methodLineOwners = new HashMap<>();
+    // Références par méthode (déclarée ou appelée), par méthode déclarée et par arc, indexées par les identifiants
+    // du graphe d'appel global ; méthodes dont la dernière référence vient d'être retirée
+    private LongIntHashMap nodeRefs = new LongIntHashMap();
+    private LongIntHashMap methodRefs = new LongIntHashMap();
+    private LongIntHashMap callRefs = new LongIntHashMap();
+    private final BitSet orphans = new BitSet();
+    private final TreeMap<Integer, Integer> parameterCounts = new TreeMap<>();
+
+    public IncrementalModel(ClassStructureVisitor totals) {
+        this.totals = totals;
+    }
+
+    public ClassStructureVisitor getTotals() {
+        return totals;
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public Set<File> getFiles() {
+        return files.keySet();
+    }
+
+    // Ajoute ou remplace le résultat d'un fichier
+    public void put(File file, ClassStructureVisitor result) {
+        FileEntry previous = files.get(file);
+        long order = previous != null ? previous.order : nextOrder++;
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        FileEntry entry = new FileEntry(order, result);
+        files.put(file, entry);
+        apply(entry, 1);
+        dropOrphans();
+    }
+
+    // Retire la contribution d'un fichier supprimé ; retourne false s'il était inconnu
+    public boolean remove(File file) {
+        boolean removed = removeEntry(file);
+        dropOrphans();
+        return removed;
+    }
+
+    private boolean removeEntry(File file) {
+        FileEntry previous = files.remove(file);
+        if (previous == null) {
+            return false;
+        }
+        apply(previous, -1);
+        return true;
+    }
+
+    // Retire tous les fichiers situés sous un répertoire supprimé
+    public int removeUnder(File dir) {
+        String prefix = dir.getAbsolutePath() + File.separator;
+        List<File> removed = new ArrayList<>();
+        for (File file : files.keySet()) {
+            if (file.getAbsolutePath().startsWith(prefix)) {
+                removed.add(file);
+            }
+        }
+        for (File file : removed) {
+            removeEntry(file);
+        }
+        dropOrphans();
+        return removed.size();
+    }
+
+    private void apply(FileEntry entry, int sign) {
+        ClassStructureVisitor result = entry.result;
+        totals.addCounts(result, sign);
+
+        adjust(parameterCounts, result.getMaxParameters(), sign);
+        totals.setMaxParameters(parameterCounts.isEmpty() ? 0 : parameterCounts.lastKey());
+
+        for (String packageName : result.getPackageNames()) {
+            int refs = adjust(packageRefs, packageName, sign);
+            if (refs == 0) {
+                totals.getPackageNames().remove(packageName);
+            } else {
+                totals.getPackageNames().add(packageName);
+            }
+        }
+
+        Set<String> classNames = new HashSet<>(result.getMethodsPerClass().keySet());
+        classNames.addAll(result.getAttributesPerClass().keySet());
+        for (String className : classNames) {
+            updateClass(className, entry, sign);
+        }
+
+        // Métriques de lignes : par fichier (clé propre au fichier), puis par classe et par méthode comme les classes
+        for (Map.Entry<String, LineMetrics> fileLines : result.getLinesPerFile().entrySet()) {
+            if (sign > 0) {
+                totals.getLinesPerFile().put(fileLines.getKey(), fileLines.getValue());
+            } else {
+                totals.getLinesPerFile().remove(fileLines.getKey());
+            }
+        }
+        for (String className : result.getLinesPerClass().keySet()) {
+            updateOwned(classLineOwners, className, entry, sign, ClassStructureVisitor::getLinesPerClass);
+            updateOwned(classFileOwners, className, entry, sign, ClassStructureVisitor::getFilesPerClass);
+        }
+        for (String methodName : result.getLinesPerMethod().keySet()) {
+            updateOwned(methodLineOwners, methodName, entry, sign, ClassStructureVisitor::getLinesPerMethod);
+        }
+
+        CallGraph callGraph = totals.getCompactCallGraph();
+        CallGraph fileGraph = result.getCompactCallGraph();
+        int[] mapping = new int[fileGraph.getNodeCount()];
+        for (int node = 0; node < mapping.length; node++) {
+            mapping[node] = callGraph.internQualified(fileGraph.getClassName(node), fileGraph.getName(node));
+            orphans.set(mapping[node], adjust(nodeRefs, mapping[node], sign) == 0);
+        }
+        fileGraph.forEachEdge((caller, callee) -> {
+            long edge = LongIntHashMap.pair(mapping[caller], mapping[callee]);
+            if (adjust(callRefs, edge, sign) == 0) {
+                callGraph.removeEdge(mapping[caller], mapping[callee]);
+            } else if (sign > 0) {
+                callGraph.addEdge(mapping[caller], mapping[callee]);
+            }
+        });
+        for (int node = 0; node < mapping.length; node++) {
+            if (!fileGraph.isDeclared(node)) {
+                continue;
+            }
+            if (adjust(methodRefs, mapping[node], sign) == 0) {
+                callGraph.undeclare(mapping[node]);
+            } else {
+                callGraph.declare(mapping[node]);
+            }
+        }
+    }
+
+    // Retire du graphe d'appel les méthodes qui ne sont plus ni déclarées ni appelées par aucun fichier,
+    // puis renumérote les références (une seule fois par opération, même pour plusieurs fichiers)
+    private void dropOrphans() {
+        if (orphans.isEmpty()) {
+            return;
+        }
+        int[] mapping = totals.getCompactCallGraph().removeNodes(orphans);
+        orphans.clear();
+        nodeRefs = remap(nodeRefs, mapping, false);
+        methodRefs = remap(methodRefs, mapping, false);
+        callRefs = remap(callRefs, mapping, true);
+    }
+
+    // Références réindexées après renumérotation du graphe ; les clés sont des méthodes ou des paires de méthodes
+    private static LongIntHashMap remap(LongIntHashMap refs, int[] mapping, boolean pairs) {
+        LongIntHashMap remapped = new LongIntHashMap(refs.size());
+        refs.forEach((key, value) -> {
+            long newKey = pairs ? LongIntHashMap.pair(mapping[LongIntHashMap.first(key)], mapping[LongIntHashMap.second(key)])
+                    : mapping[(int) key];
+            remapped.put(newKey, value);
+        });
+        return remapped;
+    }
+
+    // Recalcule les compteurs d'une classe à partir du dernier fichier (dans l'ordre) qui la déclare
+    private void updateClass(String className, FileEntry entry, int sign) {
+        TreeMap<Long, ClassStructureVisitor> owners = classOwners.computeIfAbsent(className, k -> new TreeMap<>());
+        if (sign > 0) {
+            owners.put(entry.order, entry.result);
+        } else {
+            owners.remove(entry.order);
+        }
+
+        if (owners.isEmpty()) {
+            classOwners.remove(className);
+            totals.getMethodsPerClass().remove(className);
+            totals.getAttributesPerClass().remove(className);
+            return;
+        }
+        ClassStructureVisitor owner = owners.lastEntry().getValue();
+        copyCount(owner.getMethodsPerClass(), totals.getMethodsPerClass(), className);
+        copyCount(owner.getAttributesPerClass(), totals.getAttributesPerClass(), className);
+    }
+
+    // Recalcule une valeur par clé à partir du dernier fichier (dans l'ordre) qui la fournit
+    private <V> void updateOwned(Map<String, TreeMap<Long, ClassStructureVisitor>> allOwners, String key, FileEntry entry,
+                                 int sign, Function<ClassStructureVisitor, Map<String, V>> values) {
+        TreeMap<Long, ClassStructureVisitor> owners = allOwners.computeIfAbsent(key, k -> new TreeMap<>());
+        if (sign > 0) {
+            owners.put(entry.order, entry.result);
+        } else {
+            owners.remove(entry.order);
+        }
+
+        if (owners.isEmpty()) {
+            allOwners.remove(key);
+            values.apply(totals).remove(key);
+            return;
+        }
+        copyCount(values.apply(owners.lastEntry().getValue()), values.apply(totals), key);
+    }
+
+    private static <V> void copyCount(Map<String, V> from, Map<String, V> to, String key) {
+        V value = from.get(key);
+        if (value != null) {
+            to.put(key, value);
+        } else {
+            to.remove(key);
+        }
+    }
+
+    // Ajuste un compteur de références et retourne sa nouvelle valeur (la clé disparaît à 0)
+    private static <K> int adjust(Map<K, Integer> refs, K key, int delta) {
+        int value = refs.getOrDefault(key, 0) + delta;
+        if (value <= 0) {
+            refs.remove(key);
+            return 0;
+        }
+        refs.put(key, value);
+        return value;
+    }
+
+    private static int adjust(LongIntHashMap refs, long key, int delta) {
+        int value = refs.increment(key, delta);
+        if (value <= 0) {
+            refs.remove(key);
+            return 0;
+        }
+        return value;
+    }
+
+    private static class FileEntry {
+        final long order;
+        final ClassStructureVisitor result;
+
+        FileEntry(long order, ClassStructureVisitor result) {
+            this.order = order;
+            this.result = result;
+        }
+    }
+}
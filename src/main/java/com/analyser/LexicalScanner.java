@@ -0,0 +1,487 @@
+package com.analyser;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Analyse d'un fichier par un simple parcours des lexèmes, sans construire d'AST : utilisée en mode économe
+// en mémoire pour les fichiers trop gros pour être parsés. Les déclarations de types, de méthodes et d'attributs
+// sont reconnues d'après les accolades, les parenthèses et les points-virgules, et les compteurs produits sont
+// ceux de ClassStructureVisitor. Les résultats sont approchés : pas de graphe d'appel ni de métriques par méthode,
+// et les lignes logiques sont estimées à partir des points-virgules, des déclarations et des mots-clés d'instructions.
+public class LexicalScanner {
+
+    // Nature d'une paire d'accolades
+    private static final int TYPE = 0;    // corps d'un type nommé ou anonyme
+    private static final int METHOD = 1;  // corps d'une méthode
+    private static final int BLOCK = 2;   // tout autre bloc (instructions, initialiseurs, tableaux, lambdas)
+
+    private final ClassStructureVisitor visitor;
+    private final char[] source;
+    private final int[] lineStarts;
+    private final BitSet commentLines = new BitSet();
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final List<Frame> namedTypes = new ArrayList<>();
+    private String currentClassName = null;
+    private String currentPackage = "";
+    private StringBuilder packageName = null;
+
+    // Type dont le mot-clé (class, interface, enum, @interface) a été lu et dont on attend le nom puis le corps
+    private int pendingTypeKind = -1;
+    private String pendingTypeName = null;
+    private int pendingTypeStart;
+
+    private LexicalScanner(String sourcePath, char[] source) {
+        this.visitor = new ClassStructureVisitor();
+        this.visitor.setSourcePath(sourcePath);
+        this.source = source;
+        this.lineStarts = lineStarts(source);
+    }
+
+    // Analyse le source d'un fichier ; le résultat se fusionne comme celui d'un ClassStructureVisitor
+    public static ClassStructureVisitor scan(String sourcePath, char[] source) {
+        LexicalScanner scanner = new LexicalScanner(sourcePath, source);
+        scanner.scan();
+        return scanner.visitor;
+    }
+
+    // Portée ouverte par une accolade ; les champs "membre" décrivent la déclaration en cours dans un corps de type
+    private static class Frame {
+        final int kind;
+        final String typeName;       // type englobant le plus proche (pour nommer les types imbriqués)
+        final LineMetrics lines;     // null si la portée n'a pas de métriques propres (blocs, classes anonymes)
+        final boolean annotation;    // corps d'un type annotation : ses membres ne sont pas des méthodes
+        final boolean endsMember;    // la fermeture de la portée termine la déclaration englobante
+        final boolean classDeclaration;
+        final String previousClassName;
+        boolean enumConstants;       // début du corps d'une énumération, avant le premier point-virgule
+        boolean constantStarted;     // une constante d'énumération est en cours (jusqu'à la virgule suivante)
+        int anonymousCount = 0;
+        int parenDepth = 0;
+
+        // Types : nom binaire, nommage binaire des types imbriqués et numéros des classes locales par nom
+        // (même convention que ClassStructureVisitor)
+        String binaryName;
+        boolean binaryNaming;
+        Map<String, Integer> localTypeCounts;
+
+        int[] span;                  // première et dernière lignes d'un type nommé
+
+        int memberStart = -1;
+        boolean assigned;
+        boolean method;              // la déclaration en cours a une liste de paramètres
+        int parameterCount;
+        int commas;
+        int angleDepth;
+        int bodyStartLine;
+
+        // new Type(...) { : profondeurs des parenthèses d'arguments d'un constructeur
+        int newDepth = -1;
+        int newAngleDepth;
+        final BitSet constructorParens = new BitSet();
+        boolean afterConstructorArguments;
+
+        Frame(int kind, String typeName, LineMetrics lines, boolean annotation, boolean endsMember,
+              boolean classDeclaration, String previousClassName) {
+            this.kind = kind;
+            this.typeName = typeName;
+            this.lines = lines;
+            this.annotation = annotation;
+            this.endsMember = endsMember;
+            this.classDeclaration = classDeclaration;
+            this.previousClassName = previousClassName;
+        }
+
+        void resetMember() {
+            memberStart = -1;
+            assigned = false;
+            method = false;
+        }
+    }
+
+    private void scan() {
+        IScanner scanner = ToolFactory.createScanner(true, false, false, JavaCore.VERSION_1_7, JavaCore.VERSION_1_7);
+        scanner.setSource(source);
+        LineMetrics fileLines = new LineMetrics(lineOf(source.length - 1), 0, 0);
+        // Le fichier est la portée racine : ses membres sont les déclarations package, import et les types
+        frames.push(new Frame(TYPE, null, fileLines, false, false, false, null));
+
+        int previousToken = ITerminalSymbols.TokenNameEOF;
+        boolean annotationName = false;
+        int lastEnd = -1;
+        while (true) {
+            int token;
+            try {
+                token = scanner.getNextToken();
+            } catch (InvalidInputException e) {
+                // Lexème invalide (caractère ou littéral mal formé) : ignoré, le parcours reprend juste après
+                if (scanner.getCurrentTokenEndPosition() <= lastEnd) {
+                    break;
+                }
+                lastEnd = scanner.getCurrentTokenEndPosition();
+                continue;
+            }
+            if (token == ITerminalSymbols.TokenNameEOF) {
+                break;
+            }
+            int start = scanner.getCurrentTokenStartPosition();
+            lastEnd = scanner.getCurrentTokenEndPosition();
+            if (token == ITerminalSymbols.TokenNameCOMMENT_LINE || token == ITerminalSymbols.TokenNameCOMMENT_BLOCK
+                    || token == ITerminalSymbols.TokenNameCOMMENT_JAVADOC) {
+                commentLines.set(lineOf(start), lineOf(lastEnd) + 1);
+                // Comme dans l'AST, la javadoc fait partie de la déclaration qui la suit
+                if (token == ITerminalSymbols.TokenNameCOMMENT_JAVADOC && frames.peek().memberStart < 0) {
+                    frames.peek().memberStart = start;
+                }
+                continue;
+            }
+
+            // Nom d'une annotation (@Nom ou @a.b.Nom) : ni un nom de méthode, ni le début d'une liste de paramètres
+            boolean inAnnotationName = (previousToken == ITerminalSymbols.TokenNameAT && token != ITerminalSymbols.TokenNameinterface)
+                    || (annotationName && (token == ITerminalSymbols.TokenNameDOT
+                            || (token == ITerminalSymbols.TokenNameIdentifier && previousToken == ITerminalSymbols.TokenNameDOT)));
+            accept(token, start, scanner, previousToken, annotationName);
+            annotationName = inAnnotationName;
+            previousToken = token;
+        }
+
+        // Le fichier se termine avec des accolades non fermées : les portées restantes sont fermées à la fin
+        int lastLine = lineOf(source.length - 1);
+        while (frames.size() > 1) {
+            closeFrame(lastLine);
+        }
+        finishLines(fileLines);
+    }
+
+    private void accept(int token, int start, IScanner scanner, int previousToken, boolean previousIsAnnotationName) {
+        Frame frame = frames.peek();
+        if (frame.memberStart < 0 && token != ITerminalSymbols.TokenNameSEMICOLON && token != ITerminalSymbols.TokenNameRBRACE) {
+            frame.memberStart = start;
+        }
+        boolean afterConstructorArguments = frame.afterConstructorArguments;
+        frame.afterConstructorArguments = false;
+        boolean memberLevel = frame.kind == TYPE && frame.parenDepth == 0;
+
+        switch (token) {
+            case ITerminalSymbols.TokenNamepackage:
+                if (frames.size() == 1) {
+                    packageName = new StringBuilder();
+                }
+                break;
+            case ITerminalSymbols.TokenNameclass:
+            case ITerminalSymbols.TokenNameinterface:
+            case ITerminalSymbols.TokenNameenum:
+                // "X.class" est un littéral, pas une déclaration
+                if (previousToken != ITerminalSymbols.TokenNameDOT) {
+                    pendingTypeKind = previousToken == ITerminalSymbols.TokenNameAT ? ITerminalSymbols.TokenNameAT : token;
+                    pendingTypeName = null;
+                    pendingTypeStart = frame.memberStart;
+                }
+                break;
+            case ITerminalSymbols.TokenNameIdentifier:
+                if (packageName != null) {
+                    packageName.append(scanner.getCurrentTokenSource());
+                } else if (pendingTypeKind >= 0 && pendingTypeName == null) {
+                    pendingTypeName = new String(scanner.getCurrentTokenSource());
+                }
+                if (frame.method && frame.parenDepth == 1) {
+                    frame.parameterCount = Math.max(frame.parameterCount, 1);
+                }
+                // Chaque constante d'énumération est une déclaration
+                if (frame.kind == TYPE && frame.enumConstants && frame.parenDepth == 0 && !frame.constantStarted) {
+                    frame.constantStarted = true;
+                    scopeLines().logical++;
+                }
+                break;
+            case ITerminalSymbols.TokenNameDOT:
+                if (packageName != null) {
+                    packageName.append('.');
+                }
+                break;
+            case ITerminalSymbols.TokenNamenew:
+                frame.newDepth = frame.parenDepth;
+                frame.newAngleDepth = frame.angleDepth;
+                break;
+            case ITerminalSymbols.TokenNameLBRACKET:
+                // new int[n] ou new int[] {...} : pas de classe anonyme (mais new ThreadLocal<char[]>() {...} en est une)
+                if (frame.newDepth == frame.parenDepth && frame.angleDepth == frame.newAngleDepth) {
+                    frame.newDepth = -1;
+                }
+                break;
+            case ITerminalSymbols.TokenNameEQUAL:
+                if (memberLevel) {
+                    frame.assigned = true;
+                }
+                break;
+            case ITerminalSymbols.TokenNameLPAREN:
+                if (frame.newDepth == frame.parenDepth) {
+                    frame.constructorParens.set(frame.parenDepth + 1);
+                    frame.newDepth = -1;
+                }
+                // Nom suivi d'une parenthèse dans un corps de type : méthode ou constructeur, sauf après une affectation
+                // (initialisation d'attribut) et dans la liste des constantes d'une énumération
+                if (memberLevel && previousToken == ITerminalSymbols.TokenNameIdentifier && !previousIsAnnotationName
+                        && !frame.assigned && !frame.enumConstants && !frame.method && pendingTypeKind < 0
+                        && frames.size() > 1) {
+                    frame.method = true;
+                    frame.parameterCount = 0;
+                    frame.commas = 0;
+                    frame.angleDepth = 0;
+                }
+                frame.parenDepth++;
+                break;
+            case ITerminalSymbols.TokenNameRPAREN:
+                if (frame.constructorParens.get(frame.parenDepth)) {
+                    frame.constructorParens.clear(frame.parenDepth);
+                    frame.afterConstructorArguments = true;
+                }
+                if (frame.method && frame.parenDepth == 1 && frame.parameterCount > 0) {
+                    frame.parameterCount = frame.commas + 1;
+                }
+                frame.parenDepth = Math.max(0, frame.parenDepth - 1);
+                break;
+            case ITerminalSymbols.TokenNameLESS:
+                frame.angleDepth++;
+                break;
+            case ITerminalSymbols.TokenNameGREATER:
+                frame.angleDepth--;
+                break;
+            case ITerminalSymbols.TokenNameRIGHT_SHIFT:
+                frame.angleDepth -= 2;
+                break;
+            case ITerminalSymbols.TokenNameUNSIGNED_RIGHT_SHIFT:
+                frame.angleDepth -= 3;
+                break;
+            case ITerminalSymbols.TokenNameCOMMA:
+                // Séparateur de paramètres, hors arguments génériques (Map<K, V>)
+                if (frame.method && frame.parenDepth == 1 && frame.angleDepth == 0) {
+                    frame.commas++;
+                }
+                if (frame.parenDepth == 0) {
+                    frame.constantStarted = false;
+                }
+                break;
+            case ITerminalSymbols.TokenNameSEMICOLON:
+                if (frame.parenDepth == 0) {
+                    endStatement(frame);
+                }
+                break;
+            case ITerminalSymbols.TokenNameLBRACE:
+                openFrame(frame, start, afterConstructorArguments);
+                break;
+            case ITerminalSymbols.TokenNameRBRACE:
+                if (frames.size() > 1) {
+                    closeFrame(lineOf(start));
+                }
+                break;
+            case ITerminalSymbols.TokenNameif:
+            case ITerminalSymbols.TokenNamefor:
+            case ITerminalSymbols.TokenNamewhile:
+            case ITerminalSymbols.TokenNamedo:
+            case ITerminalSymbols.TokenNameswitch:
+            case ITerminalSymbols.TokenNametry:
+            case ITerminalSymbols.TokenNamecase:
+            case ITerminalSymbols.TokenNamedefault:
+            case ITerminalSymbols.TokenNamesynchronized:
+                // Instructions de contrôle : une ligne logique chacune, en plus de celles de leurs corps
+                if (frame.kind != TYPE) {
+                    scopeLines().logical++;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Point-virgule hors parenthèses : fin d'instruction, ou fin d'une déclaration de membre
+    private void endStatement(Frame frame) {
+        if (packageName != null) {
+            currentPackage = packageName.toString();
+            visitor.addPackage(currentPackage);
+            packageName = null;
+        }
+        if (frame.kind == TYPE && frame.enumConstants) {
+            // Fin de la liste des constantes d'une énumération
+            frame.enumConstants = false;
+            frame.resetMember();
+            return;
+        }
+        scopeLines().logical++;
+        if (frame.kind == TYPE && frames.size() > 1 && currentClassName != null) {
+            if (frame.method) {
+                // Méthode abstraite ou d'interface (les membres d'un type annotation ne sont pas des méthodes)
+                if (!frame.annotation) {
+                    visitor.addMethod(currentClassName, frame.parameterCount, 0);
+                }
+            } else if (frame.memberStart >= 0) {
+                visitor.addAttribute(currentClassName);
+            }
+        }
+        frame.resetMember();
+        frame.newDepth = -1;
+    }
+
+    private void openFrame(Frame frame, int start, boolean afterConstructorArguments) {
+        int line = lineOf(start);
+        Frame typeFrame = enclosingType();
+        if (pendingTypeKind >= 0 && pendingTypeName != null) {
+            // Corps d'un type nommé (comme dans l'AST, sa déclaration compte dans la portée englobante)
+            scopeLines().logical++;
+            // Un type ouvert dans une méthode ou un bloc est une classe locale : nom binaire Englobant$1Locale
+            boolean local = typeFrame.typeName != null && frame.kind != TYPE;
+            String binaryName;
+            String typeName;
+            if (typeFrame.typeName == null) {
+                binaryName = currentPackage.isEmpty() ? pendingTypeName : currentPackage + "." + pendingTypeName;
+                typeName = binaryName;
+            } else if (local) {
+                if (typeFrame.localTypeCounts == null) {
+                    typeFrame.localTypeCounts = new HashMap<>();
+                }
+                binaryName = typeFrame.binaryName + "$" + typeFrame.localTypeCounts.merge(pendingTypeName, 1, Integer::sum)
+                        + pendingTypeName;
+                typeName = binaryName;
+            } else {
+                binaryName = typeFrame.binaryName + "$" + pendingTypeName;
+                typeName = typeFrame.binaryNaming ? binaryName : typeFrame.typeName + "." + pendingTypeName;
+            }
+            boolean classDeclaration = pendingTypeKind == ITerminalSymbols.TokenNameclass
+                    || pendingTypeKind == ITerminalSymbols.TokenNameinterface;
+            LineMetrics lines = new LineMetrics();
+            visitor.addTypeLines(typeName, lines);
+            int startLine = lineOf(pendingTypeStart >= 0 ? pendingTypeStart : start);
+            Frame type = new Frame(TYPE, typeName, lines, pendingTypeKind == ITerminalSymbols.TokenNameAT,
+                    true, classDeclaration, currentClassName);
+            type.enumConstants = pendingTypeKind == ITerminalSymbols.TokenNameenum;
+            type.binaryName = binaryName;
+            type.binaryNaming = local || typeFrame.binaryNaming;
+            type.span = new int[] {startLine, startLine};
+            namedTypes.add(type);
+            if (classDeclaration) {
+                currentClassName = typeName;
+                visitor.addClass(currentClassName);
+            }
+            pendingTypeKind = -1;
+            pendingTypeName = null;
+            frames.push(type);
+        } else if (afterConstructorArguments || (frame.kind == TYPE && frame.enumConstants)) {
+            // Classe anonyme (new Type(...) { ou constante d'énumération avec un corps)
+            String typeName = typeFrame.binaryName + "$" + (++typeFrame.anonymousCount);
+            Frame anonymous = new Frame(TYPE, typeName, null, false, false, false, currentClassName);
+            anonymous.binaryName = typeName;
+            anonymous.binaryNaming = true;
+            frames.push(anonymous);
+        } else if (frame.kind == TYPE && frame.parenDepth == 0 && frame.method && !frame.assigned) {
+            // Corps de méthode ou de constructeur, comptée à sa fermeture avec ses lignes
+            scopeLines().logical++;
+            Frame method = new Frame(METHOD, frame.typeName, new LineMetrics(), false, true, false, currentClassName);
+            method.parameterCount = frame.parameterCount;
+            method.bodyStartLine = line;
+            frames.push(method);
+        } else {
+            // Initialiseur (static {...}), ou bloc d'instructions, de tableau, de lambda
+            boolean initializer = frame.kind == TYPE && frame.parenDepth == 0 && !frame.assigned && frames.size() > 1;
+            if (initializer) {
+                scopeLines().logical++;
+            }
+            frames.push(new Frame(BLOCK, frame.typeName, null, false, initializer, false, currentClassName));
+        }
+    }
+
+    private void closeFrame(int line) {
+        Frame frame = frames.pop();
+        Frame enclosing = frames.peek();
+        if (frame.lines != null) {
+            // Comme popScope : les lignes logiques de la portée s'ajoutent à celles de la portée englobante
+            scopeLines().logical += frame.lines.logical;
+        }
+        if (frame.kind == METHOD && frame.previousClassName != null) {
+            visitor.addMethod(frame.previousClassName, frame.parameterCount, line - frame.bodyStartLine + 1);
+        } else if (frame.span != null) {
+            frame.span[1] = line;
+            if (frame.classDeclaration) {
+                currentClassName = frame.previousClassName;
+            }
+        }
+        // Une déclaration (type, méthode, initialiseur) se termine avec son corps ; une instruction continue
+        // après une classe anonyme, un tableau ou une lambda jusqu'au point-virgule
+        if (frame.endsMember) {
+            enclosing.resetMember();
+        } else if (enclosing.kind != TYPE) {
+            enclosing.memberStart = -1;
+        }
+    }
+
+    // Type englobant le plus proche (ou la racine du fichier, dont le nom est null)
+    private Frame enclosingType() {
+        for (Frame frame : frames) {
+            if (frame.kind == TYPE) {
+                return frame;
+            }
+        }
+        return frames.peekLast();
+    }
+
+    // Métriques de la portée la plus proche qui en a (méthode, type nommé ou fichier)
+    private LineMetrics scopeLines() {
+        for (Frame frame : frames) {
+            if (frame.lines != null) {
+                return frame.lines;
+            }
+        }
+        return frames.peekLast().lines;
+    }
+
+    // Lignes physiques et de commentaires, connues seulement à la fin du parcours
+    private void finishLines(LineMetrics fileLines) {
+        int lineCount = fileLines.physical;
+        int[] commentLinesUpTo = new int[lineCount + 1];
+        for (int line = 1; line <= lineCount; line++) {
+            commentLinesUpTo[line] = commentLinesUpTo[line - 1] + (commentLines.get(line) ? 1 : 0);
+        }
+        fileLines.comment = commentLinesUpTo[lineCount];
+        for (Frame type : namedTypes) {
+            int first = Math.max(1, Math.min(type.span[0], lineCount));
+            int last = Math.max(first, Math.min(type.span[1], lineCount));
+            type.lines.physical = last - first + 1;
+            type.lines.comment = commentLinesUpTo[last] - commentLinesUpTo[first - 1];
+        }
+        visitor.addFileLines(fileLines);
+    }
+
+    // Position du premier caractère de chaque ligne (fins de ligne \n, \r\n ou \r)
+    private static int[] lineStarts(char[] source) {
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = 0; i < source.length; i++) {
+            char c = source[i];
+            if (c == '\n' || (c == '\r' && (i + 1 == source.length || source[i + 1] != '\n'))) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count << 1);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private int lineOf(int position) {
+        if (position < 0) {
+            return 1;
+        }
+        int index = Arrays.binarySearch(lineStarts, position);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.analyser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Métriques de lignes d'un fichier, d'une classe ou d'une méthode :
+// - lignes physiques : lignes couvertes par l'élément dans le source (lignes vides et commentaires compris) ;
+// - lignes logiques : instructions (hors blocs) et déclarations ;
+// - lignes de commentaires : lignes contenant au moins une partie de commentaire.
+public class LineMetrics {
+
+    int physical;
+    int logical;
+    int comment;
+
+    public LineMetrics() {
+    }
+
+    LineMetrics(int physical, int logical, int comment) {
+        this.physical = physical;
+        this.logical = logical;
+        this.comment = comment;
+    }
+
+    public int getPhysical() {
+        return physical;
+    }
+
+    public int getLogical() {
+        return logical;
+    }
+
+    public int getComment() {
+        return comment;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(physical);
+        out.writeInt(logical);
+        out.writeInt(comment);
+    }
+
+    static LineMetrics readFrom(DataInput in) throws IOException {
+        return new LineMetrics(in.readInt(), in.readInt(), in.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return "physiques=" + physical + ", logiques=" + logical + ", commentaires=" + comment;
+    }
+}
@@ -0,0 +1,251 @@
+package com.analyser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Modules Maven d'un projet, découverts en suivant les balises <module> des pom.xml depuis la racine du projet.
+// Chaque module a son propre environnement de résolution des liaisons : ses racines de sources, puis pour chaque
+// module du projet dont il dépend (directement ou non) ses classes compilées (target/classes) si elles existent,
+// sinon ses racines de sources principales (jamais ses sources de test). Un module ne voit donc pas les sources
+// des modules dont il ne dépend pas.
+// Un projet sans pom.xml (ou sans module) est un module unique, avec les racines de sources habituelles
+// (src/main/java et src/test/java, sinon le répertoire du projet).
+public class MavenModules {
+
+    // Un module : répertoire, racines de sources et environnement de résolution
+    public static class Module {
+        private final String name;
+        private final File dir;
+        private final String artifactId;
+        // Racines de sources principales et de test du module (chacune absente si le répertoire n'existe pas)
+        private final List<String> mainSourceRoots;
+        private final List<String> testSourceRoots;
+        private final List<String> dependencies;
+        private String[] sourceRoots;
+        private String[] classpath;
+
+        Module(String name, File dir, String artifactId, List<String> mainSourceRoots, List<String> testSourceRoots,
+               List<String> dependencies) {
+            this.name = name;
+            this.dir = dir;
+            this.artifactId = artifactId;
+            this.mainSourceRoots = mainSourceRoots;
+            this.testSourceRoots = testSourceRoots;
+            this.dependencies = dependencies;
+        }
+
+        // Chemin du module relatif au projet ("." pour la racine)
+        public String getName() {
+            return name;
+        }
+
+        public File getDir() {
+            return dir;
+        }
+
+        // Racines de sources données à JDT : celles du module (principales et de test) puis les racines principales
+        // des modules dont il dépend sans classes compilées
+        public String[] getSourceRoots() {
+            return sourceRoots;
+        }
+
+        // Classpath donné à JDT : celui de l'analyseur puis les classes compilées des modules dont il dépend
+        public String[] getClasspath() {
+            return classpath;
+        }
+    }
+
+    private static final Pattern COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    private static final Pattern MODULE = Pattern.compile("<module>\\s*([^<]+?)\\s*</module>");
+    private static final Pattern ARTIFACT_ID = Pattern.compile("<artifactId>\\s*([^<]+?)\\s*</artifactId>");
+    private static final Pattern DEPENDENCY = Pattern.compile("<dependency>(.*?)</dependency>", Pattern.DOTALL);
+    private static final Pattern SOURCE_DIRECTORY = Pattern.compile("<sourceDirectory>\\s*([^<]+?)\\s*</sourceDirectory>");
+    private static final Pattern TEST_SOURCE_DIRECTORY =
+            Pattern.compile("<testSourceDirectory>\\s*([^<]+?)\\s*</testSourceDirectory>");
+    // Sections dont les balises <artifactId> ou <dependency> ne décrivent pas le module lui-même
+    private static final Pattern IGNORED_SECTIONS = Pattern.compile(
+            "<(parent|dependencyManagement|plugins|pluginManagement|reporting|profiles)>.*?</\\1>", Pattern.DOTALL);
+
+    private final File projectDir;
+    private final List<Module> modules = new ArrayList<>();
+    // Module de chaque répertoire déjà rencontré (voir moduleOf)
+    private final Map<File, Module> moduleDirs = new HashMap<>();
+
+    private MavenModules(File projectDir) {
+        this.projectDir = projectDir;
+    }
+
+    public static MavenModules discover(File projectDir, String[] classpathEntries) {
+        MavenModules layout = new MavenModules(projectDir.getAbsoluteFile().toPath().normalize().toFile());
+        layout.addModule(layout.projectDir, new HashSet<>());
+        layout.resolveEnvironments(classpathEntries);
+        return layout;
+    }
+
+    public List<Module> getModules() {
+        return modules;
+    }
+
+    public int size() {
+        return modules.size();
+    }
+
+    // Module d'un fichier : celui dont le répertoire est le plus proche parent du fichier (la racine par défaut)
+    public Module moduleOf(File file) {
+        File dir = file.getAbsoluteFile().toPath().normalize().toFile().getParentFile();
+        List<File> visited = new ArrayList<>();
+        Module module = null;
+        while (dir != null && module == null) {
+            module = moduleDirs.get(dir);
+            if (module == null) {
+                visited.add(dir);
+                dir = dir.getParentFile();
+            }
+        }
+        if (module == null) {
+            module = modules.get(0);
+        }
+        for (File directory : visited) {
+            moduleDirs.put(directory, module);
+        }
+        return module;
+    }
+
+    // Répartit les fichiers entre les modules, dans l'ordre des modules puis des fichiers
+    public Map<Module, List<File>> assign(List<File> files) {
+        Map<Module, List<File>> filesByModule = new LinkedHashMap<>();
+        for (Module module : modules) {
+            filesByModule.put(module, new ArrayList<>());
+        }
+        for (File file : files) {
+            filesByModule.get(moduleOf(file)).add(file);
+        }
+        filesByModule.values().removeIf(List::isEmpty);
+        return filesByModule;
+    }
+
+    // Ajoute le module d'un répertoire puis, récursivement, ses sous-modules (un répertoire n'est visité qu'une fois)
+    private void addModule(File dir, Set<File> visited) {
+        if (!visited.add(dir)) {
+            return;
+        }
+        String pom = readPom(new File(dir, "pom.xml"));
+        String description = pom != null ? IGNORED_SECTIONS.matcher(pom).replaceAll("") : "";
+        Matcher artifactId = ARTIFACT_ID.matcher(description);
+        List<String> dependencies = new ArrayList<>();
+        Matcher dependency = DEPENDENCY.matcher(description);
+        while (dependency.find()) {
+            Matcher dependencyId = ARTIFACT_ID.matcher(dependency.group(1));
+            if (dependencyId.find()) {
+                dependencies.add(dependencyId.group(1));
+            }
+        }
+        Module module = new Module(relativeName(dir), dir, artifactId.find() ? artifactId.group(1) : null,
+                findSourceRoot(dir, SOURCE_DIRECTORY.matcher(description), "src/main/java"),
+                findSourceRoot(dir, TEST_SOURCE_DIRECTORY.matcher(description), "src/test/java"), dependencies);
+        modules.add(module);
+        moduleDirs.put(dir, module);
+        if (pom == null) {
+            return;
+        }
+        Matcher child = MODULE.matcher(pom);
+        while (child.find()) {
+            File childDir = new File(dir, child.group(1)).toPath().normalize().toFile();
+            if (childDir.isFile()) {
+                // <module> peut désigner directement le pom.xml du module
+                childDir = childDir.getParentFile();
+            }
+            if (new File(childDir, "pom.xml").isFile()) {
+                addModule(childDir, visited);
+            }
+        }
+    }
+
+    // Environnement de chaque module : les modules du projet dont il dépend, transitivement
+    private void resolveEnvironments(String[] classpathEntries) {
+        Map<String, Module> byArtifactId = new HashMap<>();
+        for (Module module : modules) {
+            if (module.artifactId != null) {
+                byArtifactId.putIfAbsent(module.artifactId, module);
+            }
+        }
+        for (Module module : modules) {
+            Set<String> sourceRoots = new LinkedHashSet<>();
+            Set<String> classpath = new LinkedHashSet<>();
+            sourceRoots.addAll(module.mainSourceRoots);
+            sourceRoots.addAll(module.testSourceRoots);
+            if (sourceRoots.isEmpty()) {
+                // Module sans racine de sources (agrégateur...) : son répertoire, pour ses seuls fichiers
+                sourceRoots.add(module.dir.getAbsolutePath());
+            }
+            for (String entry : classpathEntries) {
+                classpath.add(entry);
+            }
+            Set<Module> dependencies = new LinkedHashSet<>();
+            collectDependencies(module, byArtifactId, dependencies);
+            dependencies.remove(module);
+            for (Module dependency : dependencies) {
+                File classes = new File(dependency.dir, "target/classes");
+                if (classes.isDirectory()) {
+                    classpath.add(classes.getAbsolutePath());
+                } else {
+                    // Les sources de test d'un module ne sont pas visibles des modules qui en dépendent
+                    sourceRoots.addAll(dependency.mainSourceRoots);
+                }
+            }
+            module.sourceRoots = sourceRoots.toArray(new String[0]);
+            module.classpath = classpath.toArray(new String[0]);
+        }
+    }
+
+    private static void collectDependencies(Module module, Map<String, Module> byArtifactId, Set<Module> dependencies) {
+        for (String artifactId : module.dependencies) {
+            Module dependency = byArtifactId.get(artifactId);
+            if (dependency != null && dependencies.add(dependency)) {
+                collectDependencies(dependency, byArtifactId, dependencies);
+            }
+        }
+    }
+
+    // Racine de sources d'un module : celle déclarée dans son pom.xml, sinon la convention Maven
+    // (liste vide si le répertoire n'existe pas)
+    private static List<String> findSourceRoot(File dir, Matcher declared, String conventional) {
+        String path = declared.find() ? declared.group(1).replaceFirst("^\\$\\{(project\\.)?basedir\\}/?", "") : conventional;
+        File root = new File(path).isAbsolute() ? new File(path) : new File(dir, path);
+        List<String> roots = new ArrayList<>(1);
+        if (root.isDirectory()) {
+            roots.add(root.getAbsolutePath());
+        }
+        return roots;
+    }
+
+    private String relativeName(File dir) {
+        String relative = projectDir.toPath().relativize(dir.toPath()).toString().replace(File.separatorChar, '/');
+        return relative.isEmpty() ? MetricsRollup.ROOT_MODULE : relative;
+    }
+
+    // Contenu d'un pom.xml sans ses commentaires (null s'il n'existe pas ou n'a pas pu être lu)
+    private static String readPom(File pom) {
+        if (!pom.isFile()) {
+            return null;
+        }
+        try {
+            // Les balises du pom sont en ASCII : l'encodage du fichier lui-même n'importe pas pour les trouver
+            return COMMENT.matcher(new String(Files.readAllBytes(pom.toPath()), "ISO-8859-1")).replaceAll("");
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du fichier : " + pom.getAbsolutePath());
+            return null;
+        }
+    }
+}
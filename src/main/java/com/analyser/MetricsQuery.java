@@ -0,0 +1,409 @@
+package com.analyser;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Requêtes sur les métriques par classe et par méthode : top-K, top N%, percentiles et histogrammes.
+// Chaque métrique est extraite une seule fois en colonnes (noms, valeurs) ; les top-K utilisent un tas borné
+// à k éléments (O(n log k)), les percentiles et histogrammes une table de fréquences des valeurs distinctes.
+public class MetricsQuery {
+
+    public enum Metric {
+        METHODS("methods", "classe", "méthodes"),
+        ATTRIBUTES("attributes", "classe", "attributs"),
+        LINES("loc", "classe", "lignes physiques"),
+        LOGICAL_LINES("lloc", "classe", "lignes logiques"),
+        COMMENT_LINES("comments", "classe", "lignes de commentaires"),
+        FAN_IN("fan-in", "classe", "classes appelantes"),
+        FAN_OUT("fan-out", "classe", "classes appelées"),
+        PARAMETERS("parameters", "méthode", "paramètres"),
+        METHOD_LINES("method-loc", "méthode", "lignes physiques"),
+        METHOD_FAN_IN("method-fan-in", "méthode", "méthodes appelantes"),
+        METHOD_FAN_OUT("method-fan-out", "méthode", "méthodes appelées");
+
+        private final String name;
+        private final String entity;
+        private final String unit;
+
+        Metric(String name, String entity, String unit) {
+            this.name = name;
+            this.entity = entity;
+            this.unit = unit;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Metric fromName(String name) {
+            for (Metric metric : values()) {
+                if (metric.name.equalsIgnoreCase(name)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("métrique inconnue : " + name + " " + names());
+        }
+
+        public static List<String> names() {
+            List<String> names = new ArrayList<>();
+            for (Metric metric : values()) {
+                names.add(metric.name);
+            }
+            return names;
+        }
+    }
+
+    public enum Kind {
+        TOP("top"),
+        PERCENT("percent"),
+        PERCENTILE("percentile"),
+        HISTOGRAM("histogram");
+
+        private final String name;
+
+        Kind(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Kind fromName(String name) {
+            for (Kind kind : values()) {
+                if (kind.name.equalsIgnoreCase(name)) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("requête inconnue : " + name + " (top, percent, percentile ou histogram)");
+        }
+    }
+
+    // Requête textuelle "type:métrique:paramètre", par exemple top:methods:10, percent:loc:10,
+    // percentile:fan-in:90 ou histogram:parameters:8
+    public static class Query {
+        public final Kind kind;
+        public final Metric metric;
+        public final double parameter;
+
+        public Query(Kind kind, Metric metric, double parameter) {
+            this.kind = kind;
+            this.metric = metric;
+            this.parameter = parameter;
+        }
+
+        public static Query parse(String text) {
+            String[] parts = text.trim().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("requête invalide : " + text + " (attendu type:métrique:paramètre)");
+            }
+            Kind kind = Kind.fromName(parts[0].trim());
+            Metric metric = Metric.fromName(parts[1].trim());
+            double parameter;
+            try {
+                parameter = Double.parseDouble(parts[2].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("paramètre invalide : " + parts[2]);
+            }
+            boolean valid = kind == Kind.PERCENT || kind == Kind.PERCENTILE
+                    ? parameter > 0 && parameter <= 100
+                    : parameter >= 1 && parameter == Math.floor(parameter);
+            if (!valid) {
+                throw new IllegalArgumentException("paramètre invalide pour " + kind.getName() + " : " + parts[2]
+                        + (kind == Kind.PERCENT || kind == Kind.PERCENTILE ? " (entre 0 et 100)" : " (entier positif)"));
+            }
+            return new Query(kind, metric, parameter);
+        }
+
+        @Override
+        public String toString() {
+            return kind.getName() + ":" + metric.getName() + ":" + format(parameter);
+        }
+    }
+
+    // Valeurs d'une métrique : une colonne de noms et une colonne de valeurs, puis (à la demande)
+    // les valeurs distinctes triées avec leurs effectifs cumulés
+    private static class Column {
+        final String[] names;
+        final int[] values;
+        int[] distinctValues;
+        int[] cumulativeCounts;
+
+        Column(String[] names, int[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        void buildFrequencies() {
+            if (distinctValues != null) {
+                return;
+            }
+            LongIntHashMap counts = new LongIntHashMap();
+            for (int value : values) {
+                counts.increment(value, 1);
+            }
+            distinctValues = new int[counts.size()];
+            int[] index = {0};
+            counts.forEach((value, count) -> distinctValues[index[0]++] = (int) value);
+            Arrays.sort(distinctValues);
+            cumulativeCounts = new int[distinctValues.length];
+            int cumulative = 0;
+            for (int i = 0; i < distinctValues.length; i++) {
+                cumulative += counts.get(distinctValues[i], 0);
+                cumulativeCounts[i] = cumulative;
+            }
+        }
+    }
+
+    private final ClassStructureVisitor visitor;
+    private final Map<Metric, Column> columns = new EnumMap<>(Metric.class);
+
+    public MetricsQuery(ClassStructureVisitor visitor) {
+        this.visitor = visitor;
+    }
+
+    // Nombre d'éléments (classes ou méthodes) mesurés par la métrique
+    public int size(Metric metric) {
+        return column(metric).size();
+    }
+
+    // Les k plus grandes valeurs, par valeur décroissante puis par nom (tas borné à k éléments : O(n log k))
+    public List<Map.Entry<String, Integer>> top(Metric metric, int k) {
+        Column column = column(metric);
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        Comparator<Integer> order = (a, b) -> column.values[a] != column.values[b]
+                ? Integer.compare(column.values[a], column.values[b])
+                : column.names[b].compareTo(column.names[a]);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, column.size()) + 1, order);
+        for (int i = 0; i < column.size(); i++) {
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (order.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int i = heap.poll();
+            top.add(new AbstractMap.SimpleImmutableEntry<>(column.names[i], column.values[i]));
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    // Les percent% d'éléments ayant les plus grandes valeurs (arrondi à l'inférieur)
+    public List<Map.Entry<String, Integer>> topPercent(Metric metric, double percent) {
+        return top(metric, (int) (size(metric) * percent / 100));
+    }
+
+    // Percentile p (0 < p <= 100) au rang le plus proche : plus petite valeur dont l'effectif cumulé atteint p%
+    public int percentile(Metric metric, double p) {
+        Column column = column(metric);
+        if (column.size() == 0) {
+            return 0;
+        }
+        column.buildFrequencies();
+        int rank = (int) Math.max(1, Math.ceil(p / 100 * column.size()));
+        int position = Arrays.binarySearch(column.cumulativeCounts, rank);
+        return column.distinctValues[position >= 0 ? position : -position - 1];
+    }
+
+    // Histogramme en classes de même largeur entre la plus petite et la plus grande valeur ;
+    // chaque élément est {borne inférieure, borne supérieure, effectif}
+    public List<int[]> histogram(Metric metric, int buckets) {
+        Column column = column(metric);
+        List<int[]> histogram = new ArrayList<>();
+        if (column.size() == 0) {
+            return histogram;
+        }
+        column.buildFrequencies();
+        int min = column.distinctValues[0];
+        int max = column.distinctValues[column.distinctValues.length - 1];
+        int width = Math.max(1, (int) Math.ceil((max - min + 1) / (double) buckets));
+        for (int low = min; low <= max; low += width) {
+            histogram.add(new int[] {low, low + width - 1, 0});
+        }
+        int previous = 0;
+        for (int i = 0; i < column.distinctValues.length; i++) {
+            histogram.get((column.distinctValues[i] - min) / width)[2] += column.cumulativeCounts[i] - previous;
+            previous = column.cumulativeCounts[i];
+        }
+        return histogram;
+    }
+
+    // Réponse en texte à une requête
+    public String answer(Query query) {
+        Metric metric = query.metric;
+        StringBuilder text = new StringBuilder();
+        String subject = metric.getName() + " (" + metric.unit + " par " + metric.entity + ", " + size(metric) + " éléments)";
+        switch (query.kind) {
+            case TOP:
+            case PERCENT:
+                List<Map.Entry<String, Integer>> top = query.kind == Kind.TOP
+                        ? top(metric, (int) query.parameter)
+                        : topPercent(metric, query.parameter);
+                text.append(query.kind == Kind.TOP ? "Top " + format(query.parameter) : "Top " + format(query.parameter) + "%")
+                        .append(" ").append(subject).append(" :\n");
+                for (Map.Entry<String, Integer> entry : top) {
+                    text.append(entry.getKey()).append(" : ").append(entry.getValue()).append('\n');
+                }
+                break;
+            case PERCENTILE:
+                text.append("Percentile ").append(format(query.parameter)).append(" ").append(subject).append(" : ")
+                        .append(percentile(metric, query.parameter)).append('\n');
+                break;
+            case HISTOGRAM:
+                text.append("Histogramme ").append(subject).append(" :\n");
+                List<int[]> histogram = histogram(metric, (int) query.parameter);
+                int largest = 1;
+                for (int[] bucket : histogram) {
+                    largest = Math.max(largest, bucket[2]);
+                }
+                for (int[] bucket : histogram) {
+                    text.append(String.format("[%d, %d] : %d ", bucket[0], bucket[1], bucket[2]));
+                    for (int i = 0; i < (int) Math.ceil(40.0 * bucket[2] / largest); i++) {
+                        text.append('#');
+                    }
+                    text.append('\n');
+                }
+                break;
+        }
+        return text.toString();
+    }
+
+    private static String format(double value) {
+        return value == Math.floor(value) ? Long.toString((long) value) : String.format(Locale.ROOT, "%s", value);
+    }
+
+    private Column column(Metric metric) {
+        Column column = columns.get(metric);
+        if (column == null) {
+            column = extract(metric);
+            columns.put(metric, column);
+        }
+        return column;
+    }
+
+    private Column extract(Metric metric) {
+        switch (metric) {
+            case METHODS:
+                return fromCounts(visitor.getMethodsPerClass());
+            case ATTRIBUTES:
+                return fromCounts(visitor.getAttributesPerClass());
+            case LINES:
+            case LOGICAL_LINES:
+            case COMMENT_LINES:
+                return fromLines(visitor.getLinesPerClass(), metric);
+            case METHOD_LINES:
+                return fromLines(visitor.getLinesPerMethod(), Metric.LINES);
+            case FAN_IN:
+            case FAN_OUT:
+                return classFan(metric == Metric.FAN_IN);
+            default:
+                return methodMetric(metric);
+        }
+    }
+
+    private static Column fromCounts(Map<String, Integer> counts) {
+        String[] names = new String[counts.size()];
+        int[] values = new int[counts.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            names[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        return new Column(names, values);
+    }
+
+    private static Column fromLines(Map<String, LineMetrics> lines, Metric kind) {
+        String[] names = new String[lines.size()];
+        int[] values = new int[lines.size()];
+        int i = 0;
+        for (Map.Entry<String, LineMetrics> entry : lines.entrySet()) {
+            LineMetrics metrics = entry.getValue();
+            names[i] = entry.getKey();
+            values[i++] = kind == Metric.LOGICAL_LINES ? metrics.getLogical()
+                    : kind == Metric.COMMENT_LINES ? metrics.getComment() : metrics.getPhysical();
+        }
+        return new Column(names, values);
+    }
+
+    // Fan-in / fan-out des classes du projet (celles qui déclarent au moins une méthode) : nombre de classes
+    // distinctes qui les appellent / qu'elles appellent, hors appels internes et types non résolus
+    private Column classFan(boolean fanIn) {
+        CallGraph callGraph = visitor.getCompactCallGraph();
+        boolean[] projectClasses = new boolean[callGraph.getClassCount()];
+        for (int node = 0; node < callGraph.getNodeCount(); node++) {
+            if (callGraph.isDeclared(node)) {
+                projectClasses[callGraph.getClassId(node)] = true;
+            }
+        }
+        int[] fan = new int[projectClasses.length];
+        LongIntHashMap classPairs = new LongIntHashMap();
+        callGraph.forEachEdge((caller, callee) -> {
+            int from = callGraph.getClassId(caller);
+            int to = callGraph.getClassId(callee);
+            if (from != to && !ClassStructureVisitor.UNRESOLVED_TYPE.equals(callGraph.getClassNameById(to))
+                    && classPairs.put(LongIntHashMap.pair(from, to), 1)) {
+                fan[fanIn ? to : from]++;
+            }
+        });
+        List<String> names = new ArrayList<>();
+        int[] values = new int[projectClasses.length];
+        for (int classId = 0; classId < projectClasses.length; classId++) {
+            if (projectClasses[classId]) {
+                values[names.size()] = fan[classId];
+                names.add(callGraph.getClassNameById(classId));
+            }
+        }
+        return new Column(names.toArray(new String[0]), Arrays.copyOf(values, names.size()));
+    }
+
+    // Métriques des méthodes déclarées dans le projet, d'après le graphe d'appel
+    private Column methodMetric(Metric metric) {
+        CallGraph callGraph = visitor.getCompactCallGraph();
+        CallGraphAnalytics analytics = new CallGraphAnalytics(callGraph);
+        List<String> names = new ArrayList<>();
+        int[] values = new int[callGraph.getNodeCount()];
+        for (int node = 0; node < callGraph.getNodeCount(); node++) {
+            if (!callGraph.isDeclared(node)) {
+                continue;
+            }
+            String name = callGraph.getName(node);
+            values[names.size()] = metric == Metric.PARAMETERS ? parameterCount(name)
+                    : metric == Metric.METHOD_FAN_IN ? analytics.getInDegree(node) : analytics.getOutDegree(node);
+            names.add(name);
+        }
+        return new Column(names.toArray(new String[0]), Arrays.copyOf(values, names.size()));
+    }
+
+    // Nombre de paramètres d'après la signature du nom de méthode "Classe.nom(T1,T2)" (arguments génériques effacés)
+    static int parameterCount(String methodName) {
+        int open = methodName.lastIndexOf('(');
+        if (open < 0 || methodName.charAt(open + 1) == ')') {
+            return 0;
+        }
+        int count = 1;
+        for (int i = open + 1; i < methodName.length(); i++) {
+            if (methodName.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,361 @@
+package com.analyser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Métriques agrégées par package ou par module Maven : fichiers, classes, méthodes, attributs, lignes et couplage
+// (nombre de groupes distincts appelés / appelants, vide si les appels entre fichiers ne sont pas résolus). Chaque collection du visiteur n'est parcourue qu'une fois,
+// et les résultats sont rangés en colonnes (un tableau d'entiers par métrique, les groupes triés par nom) :
+// les rapports ne reparcourent ni les sources ni les résultats par classe.
+public class MetricsRollup {
+
+    public enum Level {
+        PACKAGE("package", "Package"),
+        MODULE("module", "Module");
+
+        private final String name;
+        private final String label;
+
+        Level(String name, String label) {
+            this.name = name;
+            this.label = label;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Level fromName(String name) {
+            for (Level level : values()) {
+                if (level.name.equalsIgnoreCase(name)) {
+                    return level;
+                }
+            }
+            throw new IllegalArgumentException("niveau de regroupement inconnu : " + name + " (package ou module)");
+        }
+    }
+
+    public enum Column {
+        FILES("files", "Fichiers"),
+        CLASSES("classes", "Classes"),
+        METHODS("methods", "Méthodes"),
+        ATTRIBUTES("attributes", "Attributs"),
+        LINES("loc", "Lignes"),
+        LOGICAL_LINES("lloc", "Logiques"),
+        COMMENT_LINES("comments", "Comment."),
+        EFFERENT("efferent", "Appelés"),
+        AFFERENT("afferent", "Appelants");
+
+        private final String name;
+        private final String header;
+
+        Column(String name, String header) {
+            this.name = name;
+            this.header = header;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    // Nom du module d'un fichier hors de tout module Maven, et du module à la racine du projet
+    public static final String ROOT_MODULE = ".";
+
+    private final Level level;
+    private final String[] names;
+    private final int[][] columns;
+    private final boolean coupling;
+
+    private MetricsRollup(Level level, String[] names, int[][] columns, boolean coupling) {
+        this.level = level;
+        this.names = names;
+        this.columns = columns;
+        this.coupling = coupling;
+    }
+
+    // Regroupe les résultats d'une analyse ; projectDir sert à nommer les modules (chemins relatifs au projet).
+    // Sans coupling (appels entre fichiers non résolus), les colonnes de couplage restent vides
+    public static MetricsRollup compute(ClassStructureVisitor visitor, File projectDir, Level level, boolean coupling) {
+        return new Builder(visitor, projectDir, level, coupling).build();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int group) {
+        return names[group];
+    }
+
+    public int get(int group, Column column) {
+        return columns[column.ordinal()][group];
+    }
+
+    // Faux si les colonnes de couplage n'ont pas été calculées
+    public boolean hasCoupling() {
+        return coupling;
+    }
+
+    private boolean isComputed(Column column) {
+        return coupling || column != Column.EFFERENT && column != Column.AFFERENT;
+    }
+
+    // Indice d'un groupe d'après son nom (-1 s'il n'existe pas)
+    public int indexOf(String name) {
+        int index = Arrays.binarySearch(names, name);
+        return index >= 0 ? index : -1;
+    }
+
+    // Tableau des groupes, triés par nom
+    public void display() {
+        int width = level.label.length();
+        for (String name : names) {
+            width = Math.max(width, displayName(name).length());
+        }
+        StringBuilder header = new StringBuilder(String.format("%-" + width + "s", level.label));
+        for (Column column : Column.values()) {
+            header.append(String.format(" %10s", column.header));
+        }
+        System.out.println(header);
+        for (int group = 0; group < names.length; group++) {
+            StringBuilder row = new StringBuilder(String.format("%-" + width + "s", displayName(names[group])));
+            for (Column column : Column.values()) {
+                row.append(isComputed(column) ? String.format(" %10d", get(group, column)) : String.format(" %10s", "-"));
+            }
+            System.out.println(row);
+        }
+        if (!coupling) {
+            System.out.println("(couplage non calculé : les appels entre fichiers ne sont résolus qu'en mode batch, "
+                    + "--batch, avec liaisons)");
+        }
+    }
+
+    private static String displayName(String name) {
+        return name.isEmpty() ? "(package par défaut)" : name;
+    }
+
+    // Écrit les groupes en CSV (une ligne par groupe, précédée du niveau de regroupement)
+    public void writeCsv(Writer out, boolean withHeader) throws IOException {
+        if (withHeader) {
+            StringBuilder header = new StringBuilder("level,name");
+            for (Column column : Column.values()) {
+                header.append(',').append(column.name);
+            }
+            out.write(header.append('\n').toString());
+        }
+        for (int group = 0; group < names.length; group++) {
+            StringBuilder row = new StringBuilder(level.name).append(',').append(ProjectMetrics.csvField(names[group]));
+            for (Column column : Column.values()) {
+                row.append(',');
+                if (isComputed(column)) {
+                    row.append(get(group, column));
+                }
+            }
+            out.write(row.append('\n').toString());
+        }
+    }
+
+    // Construction en un passage sur chaque collection : types (fichier, package), fichiers (lignes),
+    // classes (compteurs), puis arcs du graphe d'appel (couplage)
+    private static class Builder {
+        private final ClassStructureVisitor visitor;
+        private final File projectDir;
+        private final Level level;
+        private final boolean coupling;
+        private final Map<String, Integer> groupIds = new HashMap<>();
+        private final List<String> groupNames = new ArrayList<>();
+        private int[][] columns = new int[Column.values().length][16];
+        // Module de chaque répertoire déjà rencontré
+        private final Map<File, String> modules = new HashMap<>();
+
+        Builder(ClassStructureVisitor visitor, File projectDir, Level level, boolean coupling) {
+            this.visitor = visitor;
+            this.projectDir = projectDir.getAbsoluteFile();
+            this.level = level;
+            this.coupling = coupling;
+        }
+
+        MetricsRollup build() {
+            // Groupe de chaque type nommé et de chaque fichier (celui du premier type qu'il déclare)
+            Map<String, Integer> typeGroups = new HashMap<>();
+            Map<String, Integer> fileGroups = new HashMap<>();
+            Map<String, Integer> directoryGroups = new HashMap<>();
+            for (Map.Entry<String, String> type : visitor.getFilesPerClass().entrySet()) {
+                Integer fileGroup = fileGroups.get(type.getValue());
+                int group = level == Level.MODULE && fileGroup != null ? fileGroup : groupOf(type.getKey(), type.getValue());
+                typeGroups.put(type.getKey(), group);
+                if (fileGroup == null) {
+                    fileGroups.put(type.getValue(), group);
+                    directoryGroups.putIfAbsent(new File(type.getValue()).getParent(), group);
+                }
+            }
+            for (Map.Entry<String, LineMetrics> file : visitor.getLinesPerFile().entrySet()) {
+                Integer group = fileGroups.get(file.getKey());
+                if (group == null) {
+                    // Fichier sans type (package-info.java...) : groupe des autres fichiers du répertoire
+                    // ou, pour un module, celui de son chemin
+                    group = level == Level.MODULE ? Integer.valueOf(groupId(moduleOf(new File(file.getKey()))))
+                            : directoryGroups.get(new File(file.getKey()).getParent());
+                }
+                if (group != null) {
+                    LineMetrics lines = file.getValue();
+                    add(Column.FILES, group, 1);
+                    add(Column.LINES, group, lines.getPhysical());
+                    add(Column.LOGICAL_LINES, group, lines.getLogical());
+                    add(Column.COMMENT_LINES, group, lines.getComment());
+                }
+            }
+            for (Map.Entry<String, Integer> type : visitor.getMethodsPerClass().entrySet()) {
+                int group = groupOfType(type.getKey(), typeGroups);
+                add(Column.CLASSES, group, 1);
+                add(Column.METHODS, group, type.getValue());
+            }
+            for (Map.Entry<String, Integer> type : visitor.getAttributesPerClass().entrySet()) {
+                add(Column.ATTRIBUTES, groupOfType(type.getKey(), typeGroups), type.getValue());
+            }
+            if (coupling) {
+                addCoupling(typeGroups);
+            }
+            return sorted();
+        }
+
+        // Couplage : chaque paire (groupe appelant, groupe appelé) distincte n'est comptée qu'une fois ;
+        // les appels vers des types hors du projet ou non résolus sont ignorés
+        private void addCoupling(Map<String, Integer> typeGroups) {
+            CallGraph callGraph = visitor.getCompactCallGraph();
+            int[] classGroups = new int[callGraph.getClassCount()];
+            for (int classId = 0; classId < classGroups.length; classId++) {
+                classGroups[classId] = projectGroupOf(callGraph.getClassNameById(classId), typeGroups);
+            }
+            LongIntHashMap groupPairs = new LongIntHashMap();
+            callGraph.forEachEdge((caller, callee) -> {
+                int from = classGroups[callGraph.getClassId(caller)];
+                int to = classGroups[callGraph.getClassId(callee)];
+                if (from >= 0 && to >= 0 && from != to && groupPairs.put(LongIntHashMap.pair(from, to), 1)) {
+                    add(Column.EFFERENT, from, 1);
+                    add(Column.AFFERENT, to, 1);
+                }
+            });
+        }
+
+        // Groupe d'un type du graphe d'appel : celui du type nommé qui le contient (les classes anonymes et locales
+        // "Englobant$1" et les types imbriqués sont rattachés à leur type englobant), -1 s'il n'est pas du projet
+        private int projectGroupOf(String typeName, Map<String, Integer> typeGroups) {
+            String name = typeName;
+            while (true) {
+                Integer group = typeGroups.get(name);
+                if (group != null) {
+                    return group;
+                }
+                int separator = Math.max(name.lastIndexOf('.'), name.lastIndexOf('$'));
+                if (separator < 0) {
+                    return -1;
+                }
+                name = name.substring(0, separator);
+            }
+        }
+
+        // Groupe d'une classe des compteurs ; une classe sans fichier connu est rattachée à son package
+        private int groupOfType(String className, Map<String, Integer> typeGroups) {
+            Integer group = typeGroups.get(className);
+            return group != null ? group : groupId(level == Level.PACKAGE ? packageOf(className) : ROOT_MODULE);
+        }
+
+        private int groupOf(String typeName, String path) {
+            return groupId(level == Level.PACKAGE ? packageOf(typeName) : moduleOf(new File(path)));
+        }
+
+        // Package d'un type : le plus long préfixe de son nom qualifié qui est un package du projet
+        private String packageOf(String typeName) {
+            Set<String> packages = visitor.getPackageNames();
+            for (int end = typeName.lastIndexOf('.'); end > 0; end = typeName.lastIndexOf('.', end - 1)) {
+                String candidate = typeName.substring(0, end);
+                if (packages.contains(candidate)) {
+                    return candidate;
+                }
+            }
+            return "";
+        }
+
+        // Module d'un fichier : chemin, relatif au projet, du plus proche répertoire parent qui contient un pom.xml
+        private String moduleOf(File file) {
+            File dir = file.getAbsoluteFile().getParentFile();
+            List<File> visited = new ArrayList<>();
+            String module = null;
+            while (dir != null && module == null) {
+                module = modules.get(dir);
+                if (module == null) {
+                    visited.add(dir);
+                    if (new File(dir, "pom.xml").isFile()) {
+                        module = relativeName(dir);
+                    } else if (dir.equals(projectDir)) {
+                        module = ROOT_MODULE;
+                    } else {
+                        dir = dir.getParentFile();
+                    }
+                }
+            }
+            if (module == null) {
+                module = ROOT_MODULE;
+            }
+            for (File directory : visited) {
+                modules.put(directory, module);
+            }
+            return module;
+        }
+
+        private String relativeName(File dir) {
+            String relative = projectDir.toPath().relativize(dir.toPath()).toString().replace(File.separatorChar, '/');
+            return relative.isEmpty() || relative.startsWith("..") ? ROOT_MODULE : relative;
+        }
+
+        private int groupId(String name) {
+            Integer id = groupIds.get(name);
+            if (id == null) {
+                id = groupNames.size();
+                groupIds.put(name, id);
+                groupNames.add(name);
+                if (id == columns[0].length) {
+                    for (int column = 0; column < columns.length; column++) {
+                        columns[column] = Arrays.copyOf(columns[column], id << 1);
+                    }
+                }
+            }
+            return id;
+        }
+
+        private void add(Column column, int group, int value) {
+            columns[column.ordinal()][group] += value;
+        }
+
+        // Colonnes réordonnées par nom de groupe (recherche par dichotomie dans indexOf)
+        private MetricsRollup sorted() {
+            Integer[] order = new Integer[groupNames.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> groupNames.get(a).compareTo(groupNames.get(b)));
+            String[] names = new String[order.length];
+            int[][] sortedColumns = new int[columns.length][order.length];
+            for (int i = 0; i < order.length; i++) {
+                names[i] = groupNames.get(order[i]);
+                for (int column = 0; column < columns.length; column++) {
+                    sortedColumns[column][i] = columns[column][order[i]];
+                }
+            }
+            return new MetricsRollup(level, names, sortedColumns, coupling);
+        }
+    }
+}
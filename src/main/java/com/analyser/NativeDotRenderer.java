@@ -0,0 +1,109 @@
+package com.analyser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Rendu par le programme dot de Graphviz (commande "dot", ou propriété système analyser.dot) : le graphe est
+// écrit en DOT directement sur l'entrée standard du processus, qui produit l'image dans le fichier de sortie.
+class NativeDotRenderer implements GraphRenderer {
+
+    private static final String DOT_COMMAND = System.getProperty("analyser.dot", "dot");
+    private static Boolean available = null;
+
+    // Vérifie une seule fois que "dot -V" s'exécute en moins de 10 s (sinon le processus est arrêté)
+    static synchronized boolean isAvailable() {
+        if (available == null) {
+            Process process = null;
+            try {
+                process = new ProcessBuilder(DOT_COMMAND, "-V").redirectErrorStream(true).start();
+                startReader(process, new ByteArrayOutputStream());
+                available = process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+            } catch (IOException e) {
+                available = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                available = false;
+            } finally {
+                if (process != null && process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public String getName() {
+        return "dot";
+    }
+
+    @Override
+    public int getMaxNodes() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void render(CallGraph graph, ImageFormat format, Path output) throws IOException {
+        Process process = new ProcessBuilder(DOT_COMMAND, "-T" + format.getExtension(), "-o", output.toString())
+                .redirectErrorStream(true).start();
+        // Les messages de dot sont lus pendant l'écriture du graphe pour ne pas bloquer le processus
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        Thread reader = startReader(process, messages);
+        boolean rendered = false;
+        try {
+            IOException writeError = null;
+            try (GraphExporter exporter = new DotExporter(new Utf8ChannelWriter(Channels.newChannel(process.getOutputStream())))) {
+                graph.exportTo(exporter);
+            } catch (IOException e) {
+                // Tube fermé : dot s'est arrêté avant la fin du graphe, son code de retour et ses messages disent pourquoi
+                writeError = e;
+            }
+            if (writeError != null && !process.waitFor(10, TimeUnit.SECONDS)) {
+                throw new IOException("Écriture du graphe vers dot interrompue : " + writeError.getMessage());
+            }
+            int exitCode = process.waitFor();
+            reader.join();
+            if (exitCode != 0 || writeError != null) {
+                throw new IOException("dot a échoué (code " + exitCode + ") : "
+                        + new String(messages.toByteArray(), StandardCharsets.UTF_8).trim()
+                        + (writeError != null ? " ; écriture du graphe interrompue : " + writeError.getMessage() : ""));
+            }
+            rendered = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendu interrompu");
+        } finally {
+            if (!rendered) {
+                process.destroy();
+            }
+        }
+    }
+
+    // Lit la sortie du processus sur un thread démon, jusqu'à sa fin
+    private static Thread startReader(Process process, ByteArrayOutputStream messages) {
+        Thread reader = new Thread(() -> {
+            try {
+                messages.write(readAll(process.getInputStream()));
+            } catch (IOException e) {
+                // Le processus s'est terminé : les messages sont perdus, le code de retour suffit
+            }
+        }, "dot-output");
+        reader.setDaemon(true);
+        reader.start();
+        return reader;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        for (int read; (read = in.read(chunk)) >= 0; ) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,51 @@
+package com.analyser;
+
+import java.io.IOException;
+
+// Format JSON délimité par des retours à la ligne : un objet par ligne,
+// {"type":"node","id":12,"name":"..."} ou {"type":"edge","source":12,"target":5}
+class NdjsonExporter implements GraphExporter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Utf8ChannelWriter out;
+
+    NdjsonExporter(Utf8ChannelWriter out) {
+        this.out = out;
+    }
+
+    @Override
+    public void node(int id, String name) throws IOException {
+        out.write("{\"type\":\"node\",\"id\":");
+        out.writeInt(id);
+        out.write(",\"name\":\"");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write("\\u00");
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            } else {
+                out.write(c);
+            }
+        }
+        out.write("\"}\n");
+    }
+
+    @Override
+    public void edge(int source, int target) throws IOException {
+        out.write("{\"type\":\"edge\",\"source\":");
+        out.writeInt(source);
+        out.write(",\"target\":");
+        out.writeInt(target);
+        out.write("}\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
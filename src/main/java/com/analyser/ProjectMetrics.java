@@ -0,0 +1,210 @@
+package com.analyser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+// Métriques globales d'un projet analysé, dans une forme lisible par un programme (JSON ou CSV)
+public class ProjectMetrics {
+
+    public enum Format {
+        JSON,
+        CSV;
+
+        // Format déduit du nom ("json" ou "csv", sans tenir compte de la casse)
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("format de métriques inconnu : " + name + " (json ou csv)");
+        }
+    }
+
+    private static final String[] COLUMNS = {
+            "project", "classes", "lines", "physicalLines", "logicalLines", "commentLines", "methods", "packages",
+            "attributes", "maxParameters", "methodsThreshold", "classesAboveThreshold", "methodsPerClass",
+            "linesPerMethod", "attributesPerClass", "analysisMillis", "peakHeapBytes"
+    };
+
+    private final String project;
+    private final int classCount;
+    private final int totalLines;
+    private final int physicalLines;
+    private final int logicalLines;
+    private final int commentLines;
+    private final int methodCount;
+    private final int packageCount;
+    private final int attributeCount;
+    private final int maxParameters;
+    private final int methodsThreshold;
+    private final int classesAboveThreshold;
+    private final long analysisMillis;
+    private final long peakHeapBytes;
+
+    public ProjectMetrics(String project, ClassStructureVisitor visitor, int methodsThreshold, long analysisMillis,
+                          long peakHeapBytes) {
+        this.project = project;
+        this.classCount = visitor.getClassCount();
+        this.totalLines = visitor.getTotalLines();
+        this.physicalLines = visitor.getPhysicalLines();
+        this.logicalLines = visitor.getLogicalLines();
+        this.commentLines = visitor.getCommentLines();
+        this.methodCount = visitor.getMethodCount();
+        this.packageCount = visitor.getPackageNames().size();
+        this.attributeCount = visitor.getAttributeCount();
+        this.maxParameters = visitor.getMaxParameters();
+        this.methodsThreshold = methodsThreshold;
+        this.classesAboveThreshold = (int) visitor.getMethodsPerClass().values().stream()
+                .filter(methods -> methods > methodsThreshold)
+                .count();
+        this.analysisMillis = analysisMillis;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getTotalLines() {
+        return totalLines;
+    }
+
+    public int getPhysicalLines() {
+        return physicalLines;
+    }
+
+    public int getLogicalLines() {
+        return logicalLines;
+    }
+
+    public int getCommentLines() {
+        return commentLines;
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    public int getPackageCount() {
+        return packageCount;
+    }
+
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    public int getMethodsThreshold() {
+        return methodsThreshold;
+    }
+
+    public int getClassesAboveThreshold() {
+        return classesAboveThreshold;
+    }
+
+    public long getAnalysisMillis() {
+        return analysisMillis;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    // Moyennes à 0 (et non NaN) pour un projet sans classe ni méthode, afin de rester du JSON valide
+    public double getMethodsPerClass() {
+        return classCount == 0 ? 0 : (double) methodCount / classCount;
+    }
+
+    public double getLinesPerMethod() {
+        return methodCount == 0 ? 0 : (double) totalLines / methodCount;
+    }
+
+    public double getAttributesPerClass() {
+        return classCount == 0 ? 0 : (double) attributeCount / classCount;
+    }
+
+    // Valeurs dans l'ordre de COLUMNS (le nom du projet à part, car c'est la seule chaîne)
+    private Object[] values() {
+        return new Object[] {
+                classCount, totalLines, physicalLines, logicalLines, commentLines, methodCount, packageCount,
+                attributeCount, maxParameters, methodsThreshold, classesAboveThreshold, format(getMethodsPerClass()),
+                format(getLinesPerMethod()), format(getAttributesPerClass()), analysisMillis, peakHeapBytes
+        };
+    }
+
+    // Point décimal quelle que soit la locale de la plateforme
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    public static void write(List<ProjectMetrics> metrics, Format format, Writer out) throws IOException {
+        if (format == Format.JSON) {
+            writeJson(metrics, out);
+        } else {
+            writeCsv(metrics, out);
+        }
+    }
+
+    // Tableau JSON, un objet par projet
+    public static void writeJson(List<ProjectMetrics> metrics, Writer out) throws IOException {
+        out.write("[");
+        for (int i = 0; i < metrics.size(); i++) {
+            ProjectMetrics project = metrics.get(i);
+            out.write(i == 0 ? "\n  {" : ",\n  {");
+            out.write("\"" + COLUMNS[0] + "\": " + jsonString(project.project));
+            Object[] values = project.values();
+            for (int column = 1; column < COLUMNS.length; column++) {
+                out.write(", \"" + COLUMNS[column] + "\": " + values[column - 1]);
+            }
+            out.write("}");
+        }
+        out.write(metrics.isEmpty() ? "]\n" : "\n]\n");
+        out.flush();
+    }
+
+    // Une ligne d'en-tête puis une ligne par projet
+    public static void writeCsv(List<ProjectMetrics> metrics, Writer out) throws IOException {
+        out.write(String.join(",", COLUMNS) + "\n");
+        for (ProjectMetrics project : metrics) {
+            StringBuilder line = new StringBuilder(csvField(project.project));
+            for (Object value : project.values()) {
+                line.append(',').append(value);
+            }
+            out.write(line.append('\n').toString());
+        }
+        out.flush();
+    }
+
+    static String jsonString(String text) {
+        StringBuilder escaped = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.append('"').toString();
+    }
+
+    // Champ entre guillemets s'il contient un séparateur, un guillemet ou un retour à la ligne
+    static String csvField(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -1,89 +1,953 @@
 package com.analyser;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
 
 import java.awt.Desktop;
-import java.io.BufferedWriter;
+import java.awt.GraphicsEnvironment;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import guru.nidi.graphviz.model.Graph;
-import guru.nidi.graphviz.model.MutableGraph;
-import guru.nidi.graphviz.engine.Format;
-import guru.nidi.graphviz.engine.Graphviz;
-import guru.nidi.graphviz.parse.Parser;
 import java.io.File;
 
 public class ProjectStaticAnalyzer {
 
+    // Avancement de l'analyse, signalé par le thread qui fusionne les résultats (et peut donc lire le visiteur)
+    public interface ProgressListener {
+        void fileAnalyzed(int analyzedFiles, int totalFiles);
+    }
+
+    // Options du compilateur JDT, calculées une seule fois (niveau de langage correspondant à AST.JLS4)
+    private static final Map<String, String> COMPILER_OPTIONS = createCompilerOptions();
+
     ClassStructureVisitor visitor = new ClassStructureVisitor();
 
-    // Analyse les fichiers d'un projet donné
-    public void analyze(String projectPath, int methodsThreshold) {
+    // Nombre de threads utilisés pour analyser les fichiers (1 = analyse séquentielle)
+    private int threadCount = 1;
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être au moins 1 : " + threadCount);
+        }
+        this.threadCount = threadCount;
+    }
+
+    // Analyse par lots : tous les fichiers sont confiés à ASTParser.createASTs avec un environnement partagé
+    private boolean batchParsing = false;
+
+    // Résolution des liaisons (bindings) ; à désactiver pour ne calculer que des métriques syntaxiques
+    private boolean resolveBindings = true;
+
+    // Classpath utilisé pour résoudre les liaisons en mode lots (jars ou répertoires de classes)
+    private String[] classpathEntries = new String[0];
+
+    // Encodage des sources imposé (null = project.build.sourceEncoding du pom.xml, sinon encodage par défaut),
+    // et lecteur de sources du projet en cours d'analyse
+    private Charset sourceCharset = null;
+    private SourceLoader sourceLoader = null;
+    private File sourceLoaderProject = null;
+
+    // Fichier du cache incrémental des résultats par fichier (null = pas de cache)
+    private File cacheFile = null;
+
+    // Motifs glob (relatifs au projet) des fichiers à inclure ou exclure, et exclusion des répertoires de build/VCS
+    private List<String> includePatterns = new ArrayList<>();
+    private List<String> excludePatterns = new ArrayList<>();
+    private boolean defaultExcludes = true;
+    private GraphExporter streamingExporter = null;
+
+    // Suivi de l'avancement et annulation (depuis un autre thread, par exemple l'interface graphique)
+    private ProgressListener progressListener = null;
+    private int analyzedFiles;
+    private int totalFiles;
+    // Fichiers dont l'analyse a échoué (exception) pendant la dernière analyse : leurs résultats manquent aux totaux
+    private int failedFiles;
+    private volatile boolean cancelled = false;
+
+    // Mode économe en mémoire (désactivé par défaut) : les fichiers de plus de maxFileSize octets sont analysés
+    // par LexicalScanner, sans AST, et au plus maxLiveAsts AST existent à la fois (les autres threads attendent)
+    private long maxFileSize = Long.MAX_VALUE;
+    private int maxLiveAsts = 0;
+    private Semaphore liveAsts = null;
+    private final AtomicInteger lexicalFiles = new AtomicInteger();
+
+    // Pic d'utilisation du tas pendant la dernière analyse
+    private long peakHeapBytes = 0;
+
+    // Projet et durée de la dernière analyse (pour les instantanés)
+    private String analyzedProject = null;
+    private long analysisMillis = 0;
+
+    // Mesures de temps par phase et par fichier (null = pas d'instrumentation)
+    private AnalysisProfiler profiler = null;
+
+    // Limites de rendu : au-delà de maxPngNodes méthodes ou maxPngEdges arcs, l'image est produite en SVG ;
+    // au-delà de maxRenderedNodes méthodes (ou de la limite du moteur de rendu), seules les plus connectées sont dessinées
+    private int maxPngNodes = 500;
+    private int maxPngEdges = 2000;
+    private int maxRenderedNodes = 5000;
+    private boolean openRenderedImage = true;
+
+    // Thread de rendu partagé (démon : il n'empêche pas la fin du programme)
+    private static final ExecutorService RENDER_EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "graph-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public boolean isBatchParsing() {
+        return batchParsing;
+    }
+
+    public void setBatchParsing(boolean batchParsing) {
+        this.batchParsing = batchParsing;
+    }
+
+    public boolean isResolveBindings() {
+        return resolveBindings;
+    }
+
+    public void setResolveBindings(boolean resolveBindings) {
+        this.resolveBindings = resolveBindings;
+    }
+
+    // Les appels entre fichiers ne sont résolus qu'en mode batch avec liaisons : sinon le couplage entre classes,
+    // calculé d'après le graphe d'appel, est incomplet (presque toujours nul)
+    public boolean resolvesCrossFileCalls() {
+        return batchParsing && resolveBindings;
+    }
+
+    // Avertissement affiché avec le couplage entre classes et les modules candidats lorsque resolvesCrossFileCalls est faux
+    public static final String INCOMPLETE_COUPLING_WARNING = "Attention : couplage incomplet, les appels entre fichiers "
+            + "ne sont résolus qu'en mode batch (--batch) avec liaisons";
+
+    public void setClasspathEntries(String... classpathEntries) {
+        this.classpathEntries = classpathEntries.clone();
+    }
+
+    public Charset getSourceCharset() {
+        return sourceCharset;
+    }
+
+    public void setSourceCharset(Charset sourceCharset) {
+        this.sourceCharset = sourceCharset;
+        this.sourceLoader = null;
+    }
+
+    // Lecteur de sources d'un projet, dans l'encodage imposé ou celui de son pom.xml
+    private SourceLoader getSourceLoader(File projectDir) {
+        if (sourceLoader == null || !projectDir.equals(sourceLoaderProject)) {
+            sourceLoader = new SourceLoader(SourceLoader.resolveCharset(projectDir, sourceCharset));
+            sourceLoaderProject = projectDir;
+        }
+        return sourceLoader;
+    }
+
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    public void setCacheFile(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    public void setIncludePatterns(List<String> includePatterns) {
+        this.includePatterns = new ArrayList<>(includePatterns);
+    }
+
+    public void setExcludePatterns(List<String> excludePatterns) {
+        this.excludePatterns = new ArrayList<>(excludePatterns);
+    }
+
+    public void setDefaultExcludes(boolean defaultExcludes) {
+        this.defaultExcludes = defaultExcludes;
+    }
+
+    public void setRenderLimits(int maxPngNodes, int maxPngEdges, int maxRenderedNodes) {
+        this.maxPngNodes = maxPngNodes;
+        this.maxPngEdges = maxPngEdges;
+        this.maxRenderedNodes = maxRenderedNodes;
+    }
+
+    // Ouvre l'image générée avec le visualiseur du système (ignoré sans affichage)
+    public void setOpenRenderedImage(boolean openRenderedImage) {
+        this.openRenderedImage = openRenderedImage;
+    }
+
+    // Exporteur qui reçoit le graphe d'appel pendant l'analyse (fermé par l'appelant après analyze)
+    public void setStreamingExporter(GraphExporter streamingExporter) {
+        this.streamingExporter = streamingExporter;
+    }
+
+    public void setLowMemoryLimits(long maxFileSize, int maxLiveAsts) {
+        if (maxFileSize < 1 || maxLiveAsts < 1) {
+            throw new IllegalArgumentException("Limites du mode économe en mémoire invalides : " + maxFileSize + " octets, "
+                    + maxLiveAsts + " AST");
+        }
+        this.maxFileSize = maxFileSize;
+        this.maxLiveAsts = maxLiveAsts;
+        this.liveAsts = new Semaphore(maxLiveAsts);
+    }
+
+    public boolean isLowMemory() {
+        return liveAsts != null;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public AnalysisProfiler getProfiler() {
+        return profiler;
+    }
+
+    public void setProfiler(AnalysisProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // Demande l'arrêt de l'analyse en cours : les fichiers en attente ne sont plus analysés et analyze
+    // renvoie false dès que les analyses déjà commencées sont terminées. L'analyseur n'est plus réutilisable ensuite.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getFailedFiles() {
+        return failedFiles;
+    }
+
+    SourceFileWalker getSourceFileWalker() {
+        return new SourceFileWalker(includePatterns, excludePatterns, defaultExcludes);
+    }
+
+    // Analyse les fichiers d'un projet donné ; les résultats sont affichés par l'appelant (displayResults).
+    // Renvoie false si le projet n'a pas pu être analysé (répertoire invalide ou sans fichier Java).
+    public boolean analyze(String projectPath) {
         File projectDir = new File(projectPath);
         if (!projectDir.isDirectory()) {
-            System.err.println("Le chemin spécifié n'est pas un répertoire valide !");
-            return;
+            System.err.println("Le chemin spécifié n'est pas un répertoire valide : " + projectPath);
+            return false;
         }
 
-        // Parcours récursif des fichiers dans le répertoire du projet
-        List<File> javaFiles = getJavaFiles(projectDir);
-        if (javaFiles.isEmpty()) {
+        CallGraph callGraph = visitor.getCompactCallGraph();
+        if (streamingExporter != null) {
+            startStreaming(callGraph);
+        }
+        resetHeapPeaks();
+        lexicalFiles.set(0);
+        failedFiles = 0;
+        long start = System.nanoTime();
+        boolean analyzed;
+        try {
+            analyzed = analyzeProject(projectDir);
+        } finally {
+            callGraph.setListener(null);
+            peakHeapBytes = heapPeaks();
+            analyzedProject = projectDir.getAbsolutePath();
+            analysisMillis = (System.nanoTime() - start) / 1_000_000;
+            if (profiler != null) {
+                profiler.setTotalNanos(System.nanoTime() - start);
+            }
+        }
+        if (cancelled) {
+            System.err.println("Analyse annulée.");
+            return false;
+        }
+        if (failedFiles > 0) {
+            System.err.println("Résultats partiels : " + failedFiles + " fichier(s) n'ont pas pu être analysés.");
+        }
+        return analyzed;
+    }
+
+    private boolean analyzeProject(File projectDir) {
+        getSourceLoader(projectDir);
+        // Le cache, le mode lots et le suivi de l'avancement (pour connaître le total) ont besoin de la liste
+        // complète des fichiers ; sinon les fichiers sont analysés au fur et à mesure du parcours du projet
+        if (cacheFile != null || batchParsing || progressListener != null) {
+            long start = System.nanoTime();
+            List<File> javaFiles = getJavaFiles(projectDir);
+            addPhase(AnalysisProfiler.Phase.DISCOVERY, start);
+            if (javaFiles.isEmpty()) {
+                System.err.println("Aucun fichier Java trouvé dans le répertoire spécifié.");
+                return false;
+            }
+            if (cacheFile != null) {
+                analyzeWithCache(projectDir, javaFiles);
+            } else {
+                analyzeFiles(projectDir, javaFiles, (file, result) -> visitor.merge(result));
+            }
+        } else if (analyzeWhileDiscovering(projectDir, (file, result) -> visitor.merge(result)) == 0) {
             System.err.println("Aucun fichier Java trouvé dans le répertoire spécifié.");
+            return false;
+        }
+        return true;
+    }
+
+    private static void resetHeapPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    // Somme des pics des zones du tas (eden, survivants, ancienne génération) : un majorant du pic réel,
+    // les zones n'atteignant pas toutes leur pic au même moment
+    private static long heapPeaks() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP && pool.isValid() ? pool.getPeakUsage() : null;
+            if (usage != null) {
+                peak += usage.getUsed();
+            }
+        }
+        return peak;
+    }
+
+    // Export en flux du graphe d'appel : le contenu déjà présent est écrit, puis chaque méthode et chaque arc
+    // nouveaux au moment où la fusion des résultats les ajoute au graphe global
+    private void startStreaming(CallGraph callGraph) {
+        GraphExporter exporter = streamingExporter;
+        long start = System.nanoTime();
+        try {
+            callGraph.exportTo(exporter);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'export du graphe d'appel : " + e.getMessage());
             return;
         }
+        addPhase(AnalysisProfiler.Phase.EXPORT, start);
+        callGraph.setListener(new CallGraph.Listener() {
+            @Override
+            public void nodeAdded(int node) {
+                long start = System.nanoTime();
+                try {
+                    exporter.node(node, callGraph.getName(node));
+                } catch (IOException e) {
+                    fail(e);
+                }
+                addPhase(AnalysisProfiler.Phase.EXPORT, start);
+            }
+
+            @Override
+            public void edgeAdded(int caller, int callee) {
+                long start = System.nanoTime();
+                try {
+                    exporter.edge(caller, callee);
+                } catch (IOException e) {
+                    fail(e);
+                }
+                addPhase(AnalysisProfiler.Phase.EXPORT, start);
+            }
+
+            private void fail(IOException e) {
+                System.err.println("Erreur lors de l'export du graphe d'appel : " + e.getMessage());
+                callGraph.setListener(null);
+            }
+        });
+    }
+
+    // Analyse les fichiers dès leur découverte, sans attendre la fin du parcours. En parallèle, le parcours continue
+    // pendant que le pool analyse les fichiers déjà trouvés ; les résultats terminés sont transmis dans l'ordre
+    // de découverte. Retourne le nombre de fichiers trouvés.
+    private int analyzeWhileDiscovering(File projectDir, BiConsumer<File, ClassStructureVisitor> handler) {
+        SourceFileWalker walker = getSourceFileWalker();
+        try {
+            // Après une annulation, le parcours se termine sans analyser les fichiers restants
+            if (threadCount <= 1) {
+                return walk(walker, projectDir, file -> {
+                    if (!cancelled) {
+                        deliver(file, analyzeFile(file), handler);
+                    }
+                });
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            try {
+                Deque<Map.Entry<File, Future<ClassStructureVisitor>>> pending = new ArrayDeque<>();
+                int fileCount = walk(walker, projectDir, file -> {
+                    if (!cancelled) {
+                        pending.addLast(new AbstractMap.SimpleEntry<>(file, executor.submit(() -> analyzeFile(file))));
+                        deliverCompleted(pending, handler, MAX_PENDING_PER_THREAD * threadCount);
+                    }
+                });
+                deliverCompleted(pending, handler, 0);
+                return fileCount;
+            } finally {
+                executor.shutdownNow();
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors du parcours du projet : " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Parcours du projet ; le temps de découverte ne compte pas celui passé à traiter les fichiers trouvés
+    private int walk(SourceFileWalker walker, File projectDir, Consumer<File> action) throws IOException {
+        if (profiler == null) {
+            return walker.walk(projectDir, action);
+        }
+        long start = System.nanoTime();
+        long[] actionNanos = {0};
+        int fileCount = walker.walk(projectDir, file -> {
+            long actionStart = System.nanoTime();
+            action.accept(file);
+            actionNanos[0] += System.nanoTime() - actionStart;
+        });
+        profiler.addPhase(AnalysisProfiler.Phase.DISCOVERY, System.nanoTime() - start - actionNanos[0]);
+        return fileCount;
+    }
+
+    // Nombre maximal de fichiers soumis et non transmis par thread : au-delà, le parcours attend le fichier de tête,
+    // pour qu'un fichier lent ne laisse pas s'accumuler en mémoire les résultats de tous les fichiers suivants
+    private static final int MAX_PENDING_PER_THREAD = 4;
+
+    // Transmet les résultats en tête de file déjà terminés, et attend ceux de tête tant que plus de maxPending
+    // fichiers restent en file (0 : attend et transmet tous les résultats)
+    private void deliverCompleted(Deque<Map.Entry<File, Future<ClassStructureVisitor>>> pending,
+                                  BiConsumer<File, ClassStructureVisitor> handler, int maxPending) {
+        while (!pending.isEmpty() && (pending.size() > maxPending || pending.peekFirst().getValue().isDone())) {
+            if (cancelled) {
+                pending.clear();
+                return;
+            }
+            Map.Entry<File, Future<ClassStructureVisitor>> head = pending.pollFirst();
+            try {
+                deliver(head.getKey(), head.getValue().get(), handler);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("Analyse interrompue.");
+                pending.clear();
+            } catch (ExecutionException e) {
+                fail(head.getKey(), e, handler);
+            }
+        }
+    }
 
-        // Analyser chaque fichier Java
+    // Analyse seulement les fichiers modifiés depuis la dernière exécution, puis reconstruit les totaux du projet
+    // à partir des résultats par fichier (mémorisés ou nouveaux), dans l'ordre des fichiers
+    private void analyzeWithCache(File projectDir, List<File> javaFiles) {
+        AnalysisCache cache = new AnalysisCache(cacheFile, getConfiguration());
+        cache.load();
+
+        long start = System.nanoTime();
+        List<File> changedFiles = new ArrayList<>();
         for (File file : javaFiles) {
-            CompilationUnit cu = parseFile(file);
-            if (cu != null) {
-                cu.accept(visitor);
+            try {
+                if (cache.lookup(file) == null) {
+                    changedFiles.add(file);
+                }
+            } catch (IOException e) {
+                System.err.println("Erreur lors de la lecture du fichier : " + file.getAbsolutePath());
             }
         }
+        addPhase(AnalysisProfiler.Phase.CACHE, start);
+        analyzeFiles(projectDir, changedFiles, cache::store);
+        if (cancelled) {
+            // Les fichiers déjà analysés restent dans le cache pour la prochaine analyse
+            cache.save();
+            return;
+        }
 
-        // Affichage des résultats d'analyse
-        displayResults(methodsThreshold);
+        start = System.nanoTime();
+        for (File file : javaFiles) {
+            ClassStructureVisitor fileVisitor = cache.get(file);
+            if (fileVisitor != null) {
+                visitor.merge(fileVisitor);
+            }
+        }
+        addPhase(AnalysisProfiler.Phase.MERGE, start);
+        start = System.nanoTime();
+        cache.retainOnly(javaFiles);
+        cache.save();
+        addPhase(AnalysisProfiler.Phase.CACHE, start);
+        cache.displayStatistics();
     }
 
-    // Récupère la liste des fichiers Java dans le répertoire (et sous-répertoires)
-    private List<File> getJavaFiles(File dir) {
-        List<File> javaFiles = new ArrayList<>();
-        
-        File[] files = dir.listFiles();
-        if (files != null) {
+    // Configuration qui influence les résultats par fichier (un cache produit avec une autre configuration est ignoré)
+    private String getConfiguration() {
+        // Les liaisons ne sont disponibles qu'en mode lots : elles déterminent les noms du graphe d'appel
+        return "bindings=" + resolveBindings + ";batch=" + batchParsing
+                + ";classpath=" + String.join(File.pathSeparator, classpathEntries)
+                + ";encoding=" + sourceLoader.getCharset().name()
+                + (isLowMemory() ? ";lexical>" + maxFileSize : "");
+    }
+
+    // Analyse les fichiers selon le mode choisi ; le gestionnaire reçoit les résultats de chaque fichier dans l'ordre
+    // (en mode lots sur un seul thread, dans l'ordre des fichiers de chaque module Maven)
+    void analyzeFiles(File projectDir, List<File> javaFiles, BiConsumer<File, ClassStructureVisitor> handler) {
+        if (javaFiles.isEmpty()) {
+            return;
+        }
+        getSourceLoader(projectDir);
+        analyzedFiles = 0;
+        totalFiles = javaFiles.size();
+        if (batchParsing) {
+            analyzeInBatch(projectDir, javaFiles, handler);
+        } else if (threadCount > 1) {
+            analyzeInParallel(javaFiles, handler);
+        } else {
+            for (File file : javaFiles) {
+                if (cancelled) {
+                    return;
+                }
+                deliver(file, analyzeFile(file), handler);
+            }
+        }
+    }
+
+    // Transmet le résultat d'un fichier (null si sa lecture a échoué) puis signale l'avancement
+    private void deliver(File file, ClassStructureVisitor fileVisitor, BiConsumer<File, ClassStructureVisitor> handler) {
+        if (fileVisitor != null) {
+            long start = System.nanoTime();
+            handler.accept(file, fileVisitor);
+            addPhase(AnalysisProfiler.Phase.MERGE, start);
+        }
+        analyzedFiles++;
+        if (progressListener != null) {
+            progressListener.fileAnalyzed(analyzedFiles, totalFiles);
+        }
+    }
+
+    // Analyse les fichiers sur un pool de threads : chaque fichier a son propre parseur et son propre visiteur,
+    // puis les résultats sont fusionnés dans l'ordre des fichiers pour obtenir exactement le résultat séquentiel
+    private void analyzeInParallel(List<File> javaFiles, BiConsumer<File, ClassStructureVisitor> handler) {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<ClassStructureVisitor>> results = new ArrayList<>(javaFiles.size());
+            for (File file : javaFiles) {
+                results.add(executor.submit(() -> analyzeFile(file)));
+            }
+            // L'échec d'un fichier n'empêche pas de transmettre les résultats des suivants
+            for (int i = 0; i < results.size() && !cancelled; i++) {
+                try {
+                    deliver(javaFiles.get(i), results.get(i).get(), handler);
+                } catch (ExecutionException e) {
+                    fail(javaFiles.get(i), e, handler);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Analyse interrompue.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Signale l'échec de l'analyse d'un fichier, compté dans failedFiles et dans l'avancement
+    private void fail(File file, ExecutionException e, BiConsumer<File, ClassStructureVisitor> handler) {
+        System.err.println("Erreur lors de l'analyse de " + file + " : " + e.getCause());
+        failedFiles++;
+        deliver(file, null, handler);
+    }
+
+    // Analyse par lots avec ASTParser.createASTs : chaque CompilationUnit est visitée dès qu'elle est produite
+    // puis libérée, de sorte que le tas ne contient jamais tous les AST à la fois. Les fichiers sont analysés
+    // module Maven par module, chacun avec ses racines de sources et son classpath (voir MavenModules).
+    // Avec plusieurs threads, les modules sont des tâches fork/join (voir ModuleTask). Dans tous les cas, les résultats
+    // sont transmis dans l'ordre des fichiers, pour obtenir le même résultat quel que soit le nombre de threads.
+    private void analyzeInBatch(File projectDir, List<File> javaFiles, BiConsumer<File, ClassStructureVisitor> handler) {
+        long start = System.nanoTime();
+        MavenModules layout = MavenModules.discover(projectDir, classpathEntries);
+        Map<MavenModules.Module, List<File>> filesByModule = layout.assign(javaFiles);
+        addPhase(AnalysisProfiler.Phase.DISCOVERY, start);
+        if (threadCount <= 1 || javaFiles.size() <= 1) {
+            // Chaque résultat est transmis dès que tous ceux des fichiers précédents l'ont été : avec un seul module,
+            // les fichiers sont transmis au fur et à mesure, comme dans l'ordre de la liste
+            OrderedResults results = new OrderedResults(javaFiles);
+            int[] next = {0};
+            for (Map.Entry<MavenModules.Module, List<File>> module : filesByModule.entrySet()) {
+                if (cancelled) {
+                    return;
+                }
+                analyzeBatch(module.getValue(), module.getKey(), (file, fileVisitor) -> {
+                    results.put(file, fileVisitor);
+                    next[0] = deliverReady(javaFiles, results, next[0], handler);
+                });
+                results.complete(module.getValue());
+                next[0] = deliverReady(javaFiles, results, next[0], handler);
+            }
+            return;
+        }
+
+        // Lots d'au moins MIN_BATCH_FILES fichiers (chaque appel à createASTs reconstruit son environnement),
+        // assez nombreux pour que les threads se partagent les gros modules
+        int batchSize = Math.max(MIN_BATCH_FILES, (javaFiles.size() + 2 * threadCount - 1) / (2 * threadCount));
+        OrderedResults results = new OrderedResults(javaFiles);
+        List<ModuleTask> tasks = new ArrayList<>(filesByModule.size());
+        for (Map.Entry<MavenModules.Module, List<File>> module : filesByModule.entrySet()) {
+            tasks.add(new ModuleTask(module.getKey(), module.getValue(), batchSize, results));
+        }
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            ForkJoinTask<?> all = pool.submit(() -> {
+                try {
+                    ForkJoinTask.invokeAll(tasks);
+                } finally {
+                    results.finish();
+                }
+            });
+            for (int i = 0; i < javaFiles.size() && !cancelled; i++) {
+                deliver(javaFiles.get(i), results.take(i), handler);
+            }
+            if (!cancelled) {
+                all.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Analyse interrompue.");
+        } catch (ExecutionException e) {
+            System.err.println("Erreur lors de l'analyse par lots : " + e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Transmet les résultats disponibles à partir du fichier d'indice next ; renvoie l'indice du premier non transmis
+    private int deliverReady(List<File> javaFiles, OrderedResults results, int next,
+                             BiConsumer<File, ClassStructureVisitor> handler) {
+        while (next < javaFiles.size() && !cancelled && results.isDone(next)) {
+            deliver(javaFiles.get(next), results.poll(next), handler);
+            next++;
+        }
+        return next;
+    }
+
+    // Nombre minimal de fichiers d'un lot analysé en parallèle
+    private static final int MIN_BATCH_FILES = 50;
+
+    // Tâche fork/join qui analyse des fichiers d'un module : au-delà de batchSize fichiers, elle est coupée en deux
+    // et les threads inoccupés volent les moitiés en attente, de sorte qu'un gros module n'occupe pas un seul thread
+    private class ModuleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MavenModules.Module module;
+        private final List<File> files;
+        private final int batchSize;
+        private final OrderedResults results;
+
+        ModuleTask(MavenModules.Module module, List<File> files, int batchSize, OrderedResults results) {
+            this.module = module;
+            this.files = files;
+            this.batchSize = batchSize;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (files.size() > batchSize && !cancelled) {
+                int middle = files.size() / 2;
+                invokeAll(new ModuleTask(module, files.subList(0, middle), batchSize, results),
+                        new ModuleTask(module, files.subList(middle, files.size()), batchSize, results));
+                return;
+            }
+            try {
+                analyzeBatch(files, module, results::put);
+            } catch (RuntimeException e) {
+                // Les autres lots continuent ; les fichiers de ce lot sans résultat sont ignorés
+                System.err.println("Erreur lors de l'analyse par lots (module " + module.getName() + ") : " + e);
+            } finally {
+                results.complete(files);
+            }
+        }
+    }
+
+    // Résultats des lots parallèles, repris dans l'ordre des fichiers dès qu'ils sont disponibles
+    // (chaque résultat n'est plus référencé une fois transmis)
+    private static class OrderedResults {
+        private final Map<File, Integer> indexes = new HashMap<>();
+        private final ClassStructureVisitor[] results;
+        private final boolean[] done;
+        private boolean finished = false;
+
+        OrderedResults(List<File> files) {
+            for (int i = 0; i < files.size(); i++) {
+                indexes.put(files.get(i), i);
+            }
+            results = new ClassStructureVisitor[files.size()];
+            done = new boolean[files.size()];
+        }
+
+        synchronized void put(File file, ClassStructureVisitor fileVisitor) {
+            int index = indexes.get(file);
+            results[index] = fileVisitor;
+            done[index] = true;
+            notifyAll();
+        }
+
+        // Fin d'un lot : ses fichiers sans résultat (erreur, annulation) ne sont plus attendus
+        synchronized void complete(List<File> files) {
             for (File file : files) {
-                if (file.isDirectory()) {
-                    // Parcours récursif des sous-répertoires
-                    javaFiles.addAll(getJavaFiles(file));
-                } else if (file.isFile() && file.getName().endsWith(".java")) {
-                    javaFiles.add(file);
+                done[indexes.get(file)] = true;
+            }
+            notifyAll();
+        }
+
+        // Fin de toutes les tâches (y compris après une erreur) : plus aucun résultat n'est attendu
+        synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        synchronized boolean isDone(int index) {
+            return done[index];
+        }
+
+        // Résultat d'un fichier (null s'il n'en a pas), en attendant la fin de son lot
+        synchronized ClassStructureVisitor take(int index) throws InterruptedException {
+            while (!done[index] && !finished) {
+                wait();
+            }
+            return poll(index);
+        }
+
+        // Résultat d'un fichier déjà terminé ; il n'est plus référencé ensuite
+        synchronized ClassStructureVisitor poll(int index) {
+            ClassStructureVisitor fileVisitor = results[index];
+            results[index] = null;
+            return fileVisitor;
+        }
+    }
+
+    // Analyse un lot de fichiers en un seul appel à createASTs ; en mode économe en mémoire, les fichiers trop gros
+    // sont analysés sans AST à leur place dans le lot, entre deux appels à createASTs
+    private void analyzeBatch(List<File> batch, MavenModules.Module module, BiConsumer<File, ClassStructureVisitor> handler) {
+        int start = 0;
+        for (int i = 0; i <= batch.size() && !cancelled; i++) {
+            if (i == batch.size() || isTooLarge(batch.get(i))) {
+                if (i > start) {
+                    parseBatch(batch.subList(start, i), module, handler);
+                }
+                if (i < batch.size()) {
+                    handler.accept(batch.get(i), scanFile(batch.get(i)));
                 }
+                start = i + 1;
             }
         }
-        return javaFiles;
     }
 
-    // Lit le contenu d'un fichier Java et retourne le CompilationUnit associé
-    private CompilationUnit parseFile(File file) {
+    // Un lot ne produit qu'un AST à la fois, mais son environnement de résolution reste en mémoire jusqu'à la fin :
+    // en mode économe en mémoire, chaque lot en cours occupe une des maxLiveAsts places
+    private void parseBatch(List<File> batch, MavenModules.Module module, BiConsumer<File, ClassStructureVisitor> handler) {
+        if (!acquireAst()) {
+            return;
+        }
         try {
-            // Lire le contenu du fichier
-            String source = new String(Files.readAllBytes(file.toPath()));
-            
-            // Utiliser le parseur JDT pour obtenir le CompilationUnit
-            ASTParser parser = ASTParser.newParser(AST.JLS4);  // Utilisation de Java 8
-            parser.setKind(ASTParser.K_COMPILATION_UNIT);
-            parser.setResolveBindings(true);
-            parser.setBindingsRecovery(true);
-            parser.setUnitName(file.getName());
-            parser.setSource(source.toCharArray());
+            createASTs(batch, module, handler);
+        } finally {
+            releaseAst();
+        }
+    }
+
+    private void createASTs(List<File> batch, MavenModules.Module module, BiConsumer<File, ClassStructureVisitor> handler) {
+        Map<String, File> filesByPath = new HashMap<>();
+        String[] sourceFilePaths = new String[batch.size()];
+        String[] sourceFileEncodings = new String[batch.size()];
+        Arrays.fill(sourceFileEncodings, sourceLoader.getCharset().name());
+        for (int i = 0; i < sourceFilePaths.length; i++) {
+            sourceFilePaths[i] = batch.get(i).getAbsolutePath();
+            filesByPath.put(sourceFilePaths[i], batch.get(i));
+        }
 
-            return (CompilationUnit) parser.createAST(null);
+        ASTParser parser = newParser();
+        // JDT lit lui-même les fichiers du lot et les racines de sources du module : il reçoit l'encodage de chacun
+        String encoding = sourceLoader.getCharset().name();
+        String[] roots = resolveBindings ? module.getSourceRoots() : new String[0];
+        String[] rootEncodings = new String[roots.length];
+        Arrays.fill(rootEncodings, encoding);
+        parser.setEnvironment(module.getClasspath(), roots, rootEncodings, resolveBindings);
+        // Les liaisons d'un même lot proviennent du même environnement : leurs noms sont mis en cache une seule fois
+        BindingNameCache bindingNames = new BindingNameCache();
+        // JDT consulte le moniteur entre deux unités de compilation et s'arrête après une annulation
+        NullProgressMonitor monitor = new NullProgressMonitor() {
+            @Override
+            public boolean isCanceled() {
+                return cancelled;
+            }
+        };
+        try {
+            parser.createASTs(sourceFilePaths, sourceFileEncodings, new String[0], new FileASTRequestor() {
+                // JDT lit et parse chaque fichier avant de le transmettre : le temps écoulé depuis la fin du fichier
+                // précédent est son temps de lecture et de parsing (résolution des liaisons comprise)
+                private long mark = System.nanoTime();
+                private long allocatedMark = profiler != null ? profiler.threadAllocatedBytes() : -1;
+
+                @Override
+                public void acceptAST(String sourceFilePath, CompilationUnit cu) {
+                    if (cancelled) {
+                        return;
+                    }
+                    File file = filesByPath.get(sourceFilePath);
+                    AnalysisProfiler.FileProfile profile = profiler != null
+                            ? profiler.startFile(file.getPath(), file.length(), mark, allocatedMark) : null;
+                    lap(profile, AnalysisProfiler.Phase.PARSE);
+                    ClassStructureVisitor fileVisitor = new ClassStructureVisitor(bindingNames);
+                    fileVisitor.setSourcePath(file.getPath());
+                    cu.accept(fileVisitor);
+                    if (profile != null) {
+                        profile.lap(AnalysisProfiler.Phase.VISIT);
+                        profiler.endFile(profile);
+                    }
+                    handler.accept(file, fileVisitor);
+                    if (profiler != null) {
+                        mark = System.nanoTime();
+                        allocatedMark = profiler.threadAllocatedBytes();
+                    }
+                }
+            }, monitor);
+        } catch (OperationCanceledException e) {
+            // Annulation demandée : les résultats déjà transmis sont conservés
+        }
+    }
+
+    // Analyse un seul fichier avec un visiteur dédié ; l'AST n'est plus référencé après la visite
+    private ClassStructureVisitor analyzeFile(File file) {
+        // Les tâches encore en file d'attente au moment d'une annulation se terminent sans analyser
+        if (cancelled) {
+            return null;
+        }
+        if (isTooLarge(file)) {
+            return scanFile(file);
+        }
+        if (!acquireAst()) {
+            return null;
+        }
+        try {
+            AnalysisProfiler.FileProfile profile = profiler != null ? profiler.startFile(file.getPath(), file.length()) : null;
+            char[] source = readSource(file);
+            lap(profile, AnalysisProfiler.Phase.READ);
+            CompilationUnit cu = parse(file, source);
+            lap(profile, AnalysisProfiler.Phase.PARSE);
+            ClassStructureVisitor fileVisitor = new ClassStructureVisitor();
+            fileVisitor.setSourcePath(file.getPath());
+            cu.accept(fileVisitor);
+            if (profile != null) {
+                profile.lap(AnalysisProfiler.Phase.VISIT);
+                profiler.endFile(profile);
+            }
+            return fileVisitor;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du fichier : " + file.getAbsolutePath());
+            return null;
+        } finally {
+            releaseAst();
+        }
+    }
+
+    private static void lap(AnalysisProfiler.FileProfile profile, AnalysisProfiler.Phase phase) {
+        if (profile != null) {
+            profile.lap(phase);
+        }
+    }
 
+    // Ajoute au profil le temps écoulé depuis start (System.nanoTime)
+    private void addPhase(AnalysisProfiler.Phase phase, long start) {
+        if (profiler != null) {
+            profiler.addPhase(phase, System.nanoTime() - start);
+        }
+    }
+
+    private boolean isTooLarge(File file) {
+        return isLowMemory() && file.length() > maxFileSize;
+    }
+
+    // Analyse lexicale d'un fichier trop gros pour être parsé (null si sa lecture a échoué)
+    private ClassStructureVisitor scanFile(File file) {
+        try {
+            AnalysisProfiler.FileProfile profile = profiler != null ? profiler.startFile(file.getPath(), file.length()) : null;
+            char[] source = readSource(file);
+            lap(profile, AnalysisProfiler.Phase.READ);
+            ClassStructureVisitor fileVisitor = LexicalScanner.scan(file.getPath(), source);
+            if (profile != null) {
+                profile.lap(AnalysisProfiler.Phase.LEXICAL);
+                profiler.endFile(profile);
+            }
+            lexicalFiles.incrementAndGet();
+            return fileVisitor;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du fichier : " + file.getAbsolutePath());
+            return null;
+        }
+    }
+
+    // Attend qu'une place se libère pour un AST en mode économe en mémoire ; false si le thread est interrompu
+    // (pool arrêté après une annulation) ou si l'analyse a été annulée pendant l'attente
+    private boolean acquireAst() {
+        if (liveAsts == null) {
+            return true;
+        }
+        try {
+            liveAsts.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (cancelled) {
+            liveAsts.release();
+            return false;
+        }
+        return true;
+    }
+
+    private void releaseAst() {
+        if (liveAsts != null) {
+            liveAsts.release();
+        }
+    }
+
+    // Récupère la liste des fichiers Java dans le répertoire (et sous-répertoires)
+    List<File> getJavaFiles(File dir) {
+        try {
+            return getSourceFileWalker().list(dir);
+        } catch (IOException e) {
+            System.err.println("Erreur lors du parcours du projet : " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Lit le contenu d'un fichier Java et retourne le CompilationUnit associé
+    CompilationUnit parseFile(File file) {
+        try {
+            // Lire le contenu du fichier puis le parser
+            File parent = file.getAbsoluteFile().getParentFile();
+            SourceLoader loader = sourceLoader != null ? sourceLoader : new SourceLoader(SourceLoader.resolveCharset(parent, sourceCharset));
+            return parse(file, loader.read(file));
         } catch (IOException e) {
             System.err.println("Erreur lors de la lecture du fichier : " + file.getAbsolutePath());
             e.printStackTrace();
@@ -91,14 +955,48 @@ public class ProjectStaticAnalyzer {
         }
     }
 
+    // Utilise le parseur JDT pour obtenir le CompilationUnit du contenu d'un fichier
+    private CompilationUnit parse(File file, char[] source) {
+        ASTParser parser = newParser();
+        parser.setUnitName(file.getName());
+        parser.setSource(source);
+        return (CompilationUnit) parser.createAST(null);
+    }
+
+    // Contenu d'un fichier source, dans l'encodage du projet en cours d'analyse
+    private char[] readSource(File file) throws IOException {
+        return sourceLoader.read(file);
+    }
+
+    // Crée un parseur JDT configuré selon les options de l'analyseur
+    private ASTParser newParser() {
+        ASTParser parser = ASTParser.newParser(AST.JLS4);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setResolveBindings(resolveBindings);
+        parser.setBindingsRecovery(resolveBindings);
+        parser.setCompilerOptions(COMPILER_OPTIONS);
+        return parser;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> createCompilerOptions() {
+        Map<String, String> options = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options);
+        return options;
+    }
+
     // Affiche les résultats de l'analyse
-    void displayResults(int methodsThreshold) {
+    public void displayResults(int methodsThreshold) {
         // 1. Nombre de classes de l’application
         System.out.println("Nombre de classes : " + visitor.getClassCount());
 
         // 2. Nombre de lignes de code de l’application
         System.out.println("Nombre total de lignes de code : " + visitor.getTotalLines());
 
+        // Lignes physiques, logiques et de commentaires de l'ensemble des fichiers (table de lignes du source)
+        System.out.println("Lignes physiques : " + visitor.getPhysicalLines() + ", lignes logiques : " + visitor.getLogicalLines()
+                + ", lignes de commentaires : " + visitor.getCommentLines());
+
         // 3. Nombre total de méthodes de l’application
         System.out.println("Nombre total de méthodes : " + visitor.getMethodCount());
 
@@ -115,7 +1013,7 @@ public class ProjectStaticAnalyzer {
         System.out.println("Nombre moyen d'attributs par classe : " + (double) visitor.getAttributeCount() / visitor.getClassCount());
 
         // 8 & 9. Les 10% des classes avec le plus grand nombre de méthodes et d'attributs
-        displayTopClasses(20);
+        displayTopClasses(10);
 
         // 10. Les classes qui possèdent plus de X méthodes
         displayClassesWithMoreThanXMethods(methodsThreshold);
@@ -124,10 +1022,42 @@ public class ProjectStaticAnalyzer {
         System.out.println("Nombre maximal de paramètres : " + visitor.getMaxParameters());
     }
 
+    // Instantané des résultats de la dernière analyse
+    public AnalysisSnapshot getSnapshot() {
+        return new AnalysisSnapshot(analyzedProject != null ? analyzedProject : "", System.currentTimeMillis(),
+                analysisMillis, visitor);
+    }
+
+    // Enregistre l'instantané des résultats dans un fichier ; false en cas d'erreur d'écriture
+    public boolean saveSnapshot(String fileName) {
+        Path path = Paths.get(fileName);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            getSnapshot().save(path.toFile());
+            System.err.println("Instantané de l'analyse écrit dans le fichier " + path);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture de l'instantané dans " + fileName + " : " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Pic d'utilisation du tas pendant la dernière analyse et, en mode économe en mémoire, ses limites
+    public void displayMemoryUsage() {
+        System.out.printf("Pic d'utilisation du tas : %.1f Mo%n", peakHeapBytes / (1024.0 * 1024.0));
+        if (isLowMemory()) {
+            System.out.println("Mode économe en mémoire : au plus " + maxLiveAsts + " AST à la fois, " + lexicalFiles.get()
+                    + " fichier(s) de plus de " + maxFileSize / 1024 + " Ko analysé(s) sans AST (métriques approchées)");
+        }
+    }
+
     // Affiche les 10% des classes ayant le plus de méthodes et d'attributs
     private void displayTopClasses(int percent) {
-        List<Map.Entry<String, Integer>> topMethodsClasses = getTopNClasses(visitor.getMethodsPerClass(), percent);
-        List<Map.Entry<String, Integer>> topAttributesClasses = getTopNClasses(visitor.getAttributesPerClass(), percent);
+        MetricsQuery metrics = getMetricsQuery();
+        List<Map.Entry<String, Integer>> topMethodsClasses = metrics.topPercent(MetricsQuery.Metric.METHODS, percent);
+        List<Map.Entry<String, Integer>> topAttributesClasses = metrics.topPercent(MetricsQuery.Metric.ATTRIBUTES, percent);
 
         System.out.println("Top " + percent + "% des classes avec le plus de méthodes : " + topMethodsClasses);
         System.out.println("Top " + percent + "% des classes avec le plus d'attributs : " + topAttributesClasses);
@@ -141,12 +1071,14 @@ public class ProjectStaticAnalyzer {
         System.out.println("Classes présentes dans les deux catégories : " + commonClasses);
     }
 
-    // Récupère les N% de classes avec le plus grand nombre d'attributs ou de méthodes
-    private List<Map.Entry<String, Integer>> getTopNClasses(Map<String, Integer> map, int percent) {
-        return map.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(map.size() * percent / 100)
-                .collect(Collectors.toList());
+    // Moteur de requêtes (top-K, percentiles, histogrammes) sur les métriques de l'analyse
+    public MetricsQuery getMetricsQuery() {
+        return new MetricsQuery(visitor);
+    }
+
+    // Affiche la réponse à une requête sur les métriques (par exemple top:methods:10 ou percentile:loc:90)
+    public void displayQuery(MetricsQuery.Query query) {
+        System.out.print(getMetricsQuery().answer(query));
     }
 
     // Affiche les classes avec plus de X méthodes
@@ -156,6 +1088,18 @@ public class ProjectStaticAnalyzer {
                 .filter(entry -> entry.getValue() > x)
                 .forEach(entry -> System.out.println(entry.getKey() + " : " + entry.getValue() + " méthodes"));
     }
+    // Affiche les métriques de lignes de chaque fichier, classe et méthode
+    public void displayLineMetrics() {
+        displayLineMetrics("Lignes par fichier :", visitor.getLinesPerFile());
+        displayLineMetrics("Lignes par classe :", visitor.getLinesPerClass());
+        displayLineMetrics("Lignes par méthode :", visitor.getLinesPerMethod());
+    }
+
+    private void displayLineMetrics(String title, Map<String, LineMetrics> lines) {
+        System.out.println(title);
+        new TreeMap<>(lines).forEach((name, metrics) -> System.out.println(name + " : " + metrics));
+    }
+
     //methode graphe dappel
     public void displayCallGraph() {
         Map<String, Set<String>> callGraph = visitor.getCallGraph();
@@ -172,58 +1116,171 @@ public class ProjectStaticAnalyzer {
             }
         }
     }
- // Méthode pour exporter le graphe d'appel dans un fichier .dot
-    public void exportCallGraphToDot(String fileName) {
-        Map<String, Set<String>> callGraph = visitor.getCallGraph();
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName + ".dot"))) {
-            writer.write("digraph CallGraph {\n");
-            
-            for (Map.Entry<String, Set<String>> entry : callGraph.entrySet()) {
-                String method = entry.getKey();
-                Set<String> calledMethods = entry.getValue();
-                
-                for (String calledMethod : calledMethods) {
-                    writer.write("\"" + method + "\" -> \"" + calledMethod + "\";\n");
-                }
-            }
+    // Analyses du graphe d'appel (composantes fortement connexes, accessibilité, degrés)
+    public CallGraphAnalytics getCallGraphAnalytics() {
+        return new CallGraphAnalytics(visitor.getCompactCallGraph());
+    }
+
+    // Affiche les cycles d'appels, les méthodes jamais appelées ou inaccessibles depuis les points d'entrée
+    // (méthodes main et préfixes donnés) et les k méthodes ayant le plus d'appelants et d'appelées
+    public void displayCallGraphAnalytics(int k, List<String> entryPrefixes) {
+        System.out.print(describeCallGraphAnalytics(k, entryPrefixes));
+    }
 
-            writer.write("}\n");
-            System.out.println("Le graphe d'appel a été exporté dans le fichier " + fileName + ".dot");
+    public String describeCallGraphAnalytics(int k, List<String> entryPrefixes) {
+        CallGraphAnalytics analytics = getCallGraphAnalytics();
+        CallGraph callGraph = analytics.getCallGraph();
+        StringBuilder text = new StringBuilder();
+        text.append("Graphe d'appel : ").append(callGraph.getNodeCount()).append(" méthodes (")
+                .append(analytics.getDeclaredCount()).append(" déclarées dans le projet), ")
+                .append(callGraph.getEdgeCount()).append(" appels\n");
+
+        List<List<String>> cycles = analytics.getCycles();
+        text.append("Composantes fortement connexes : ").append(analytics.getComponentCount()).append(", dont ")
+                .append(cycles.size()).append(" cycles d'appels (récursion directe ou mutuelle)\n");
+        for (List<String> cycle : cycles.subList(0, Math.min(k, cycles.size()))) {
+            text.append("Cycle de ").append(cycle.size()).append(" méthodes : ").append(cycle).append('\n');
+        }
 
+        BitSet entryPoints = analytics.findEntryPoints(entryPrefixes);
+        List<String> unreachable = analytics.getUnreachableMethods(entryPoints);
+        text.append("Points d'entrée : ").append(entryPoints.cardinality())
+                .append(" ; méthodes déclarées inaccessibles depuis ces points : ").append(unreachable.size()).append('\n');
+        appendNames(text, unreachable, k);
+        List<String> uncalled = analytics.getUncalledMethods(entryPoints);
+        text.append("Méthodes déclarées jamais appelées (hors constructeurs et points d'entrée) : ")
+                .append(uncalled.size()).append('\n');
+        appendNames(text, uncalled, k);
+
+        MetricsQuery metrics = getMetricsQuery();
+        text.append("Top ").append(k).append(" des méthodes les plus appelées (fan-in) :\n");
+        metrics.top(MetricsQuery.Metric.METHOD_FAN_IN, k)
+                .forEach(entry -> text.append(entry.getKey()).append(" : ").append(entry.getValue()).append('\n'));
+        text.append("Top ").append(k).append(" des méthodes qui appellent le plus de méthodes (fan-out) :\n");
+        metrics.top(MetricsQuery.Metric.METHOD_FAN_OUT, k)
+                .forEach(entry -> text.append(entry.getKey()).append(" : ").append(entry.getValue()).append('\n'));
+        return text.toString();
+    }
+
+    // Les k premiers noms d'une liste, puis le nombre de noms restants
+    private static void appendNames(StringBuilder text, List<String> names, int k) {
+        names.subList(0, Math.min(k, names.size())).forEach(name -> text.append("  ").append(name).append('\n'));
+        if (names.size() > k) {
+            text.append("  ... et ").append(names.size() - k).append(" autres\n");
+        }
+    }
+
+    // Méthode pour exporter le graphe d'appel dans un fichier .dot
+    public void exportCallGraphToDot(String fileName) {
+        exportCallGraph(fileName, GraphExporter.Format.DOT, false);
+    }
+
+    // Exporte le graphe d'appel dans le format choisi (fichier nom.extension, suivi de .gz si compressé)
+    public Path exportCallGraph(String fileName, GraphExporter.Format format, boolean gzip) {
+        Path path = Paths.get(fileName + "." + format.getExtension() + (gzip ? ".gz" : ""));
+        long start = System.nanoTime();
+        try (GraphExporter exporter = GraphExporter.open(format, path, gzip)) {
+            // Parcours direct des listes d'adjacence, sans construire la vue Map
+            visitor.getCompactCallGraph().exportTo(exporter);
+            addPhase(AnalysisProfiler.Phase.EXPORT, start);
         } catch (IOException e) {
             System.err.println("Erreur lors de l'export du graphe d'appel : " + e.getMessage());
+            return null;
         }
+        System.out.println("Le graphe d'appel a été exporté dans le fichier " + path);
+        return path;
     }
-   
 
-    public void generateGraphImage(String dotFilePath, String outputImagePath) {
+    // Graphe de couplage entre classes, calculé à partir du graphe d'appel de la dernière analyse
+    public CouplingGraph getCouplingGraph() {
+        return CouplingGraph.fromCallGraph(visitor.getCompactCallGraph());
+    }
+
+    // Affiche les k paires de classes les plus couplées
+    public void displayTopCoupledClasses(int k) {
+        if (!resolvesCrossFileCalls()) {
+            System.out.println(INCOMPLETE_COUPLING_WARNING);
+        }
+        CouplingGraph coupling = getCouplingGraph();
+        System.out.println("Couplage entre classes : " + coupling.getPairCount() + " paires couplées, "
+                + coupling.getTotalCalls() + " appels entre classes");
+        System.out.println("Top " + k + " des paires de classes les plus couplées :");
+        for (CouplingGraph.CoupledPair pair : coupling.getTopPairs(k)) {
+            System.out.println(pair);
+        }
+    }
+
+    // Méthode pour exporter le graphe de couplage dans un fichier .dot
+    public void exportCouplingGraphToDot(String fileName) {
         try {
-            // Vérification si l'extension .dot est bien présente
-            if (!dotFilePath.endsWith(".dot")) {
-                dotFilePath += ".dot";
-            }
-            
-            File dotFile = new File(dotFilePath);
-            
-            // Vérification que le fichier existe
-            if (!dotFile.exists()) {
-                System.err.println("Le fichier .dot n'existe pas : " + dotFilePath);
-                return;
-            }
-            
-            Parser parser = new Parser();
-            MutableGraph g = parser.read(dotFile);
-            Graphviz.fromGraph(g).render(Format.PNG).toFile(new File(outputImagePath));
-            System.out.println("Image du graphe générée : " + outputImagePath);
-         // Utilisation d'une commande système spécifique pour ouvrir l'image
-            File imageFile = new File(outputImagePath);
-            openImage(imageFile);
-            
+            getCouplingGraph().exportToDot(fileName);
+            System.out.println("Le graphe de couplage a été exporté dans le fichier " + fileName + ".dot");
         } catch (IOException e) {
-            System.err.println("Erreur lors de la génération de l'image du graphe : " + e.getMessage());
+            System.err.println("Erreur lors de l'export du graphe de couplage : " + e.getMessage());
         }
     }
+
+    // Dendrogramme du regroupement hiérarchique des classes selon leur couplage (lien moyen)
+    public HierarchicalClustering clusterClasses() {
+        return HierarchicalClustering.averageLinkage(getCouplingGraph());
+    }
+
+    // Affiche les modules candidats obtenus en coupant le dendrogramme au seuil de couplage donné
+    public void displayModules(HierarchicalClustering clustering, double threshold) {
+        List<List<String>> modules = clustering.cut(threshold);
+        if (!resolvesCrossFileCalls()) {
+            System.out.println(INCOMPLETE_COUPLING_WARNING);
+        }
+        System.out.println("Modules candidats (seuil de couplage " + threshold + ") : " + modules.size() + " modules");
+        for (int i = 0; i < modules.size(); i++) {
+            System.out.println("Module " + (i + 1) + " (" + modules.get(i).size() + " classes) : " + modules.get(i));
+        }
+    }
+
+    // Méthode pour exporter le dendrogramme dans un fichier .dot
+    public void exportDendrogramToDot(HierarchicalClustering clustering, String fileName) {
+        try {
+            clustering.exportToDot(fileName);
+            System.out.println("Le dendrogramme a été exporté dans le fichier " + fileName + ".dot");
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'export du dendrogramme : " + e.getMessage());
+        }
+    }
+   
+
+    // Génère l'image du graphe d'appel en arrière-plan (fichier outputPath.png, ou .svg pour un gros graphe).
+    // L'instantané du graphe, éventuellement réduit, est pris sur le thread appelant ; le rendu se fait ensuite
+    // sur le thread de rendu. Le résultat est le chemin de l'image, ou null en cas d'erreur.
+    public CompletableFuture<Path> renderCallGraph(String outputPath) {
+        GraphRenderer renderer = GraphRenderer.detect();
+        CallGraph callGraph = visitor.getCompactCallGraph();
+        CallGraph snapshot = callGraph.mostConnected(Math.min(maxRenderedNodes, renderer.getMaxNodes()));
+        if (snapshot.getNodeCount() < callGraph.getNodeCount()) {
+            System.out.println("Graphe trop grand pour être dessiné : seules les " + snapshot.getNodeCount()
+                    + " méthodes les plus connectées (sur " + callGraph.getNodeCount() + ") sont conservées.");
+        }
+        GraphRenderer.ImageFormat format = snapshot.getNodeCount() > maxPngNodes || snapshot.getEdgeCount() > maxPngEdges
+                ? GraphRenderer.ImageFormat.SVG
+                : GraphRenderer.ImageFormat.PNG;
+        Path output = Paths.get(outputPath + "." + format.getExtension());
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                renderer.render(snapshot, format, output);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erreur lors de la génération de l'image du graphe : " + e.getMessage());
+                return null;
+            }
+            System.out.println("Image du graphe générée (" + renderer.getName() + ") : " + output);
+            // Pas d'ouverture automatique sans affichage (serveur) ou si elle est désactivée
+            if (openRenderedImage && !GraphicsEnvironment.isHeadless()) {
+                openImage(output.toFile());
+            }
+            return output;
+        }, RENDER_EXECUTOR);
+    }
+
     public void openImage(File imageFile) {
         String os = System.getProperty("os.name").toLowerCase();
         try {
@@ -0,0 +1,158 @@
+package com.analyser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Mode surveillance : après une analyse complète, surveille l'arborescence du projet avec un WatchService
+// et ne réanalyse que les fichiers .java modifiés. Les rafales d'événements (sauvegarde, git checkout...)
+// sont regroupées : la mise à jour n'est lancée qu'après debounceMillis sans nouvel événement.
+public class ProjectWatcher {
+
+    private final ProjectStaticAnalyzer analyzer;
+    private final File projectDir;
+    private final int methodsThreshold;
+    private final long debounceMillis;
+
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private final SourceFileWalker walker;
+    private IncrementalModel model;
+
+    public ProjectWatcher(ProjectStaticAnalyzer analyzer, File projectDir, int methodsThreshold, long debounceMillis) {
+        this.analyzer = analyzer;
+        this.projectDir = projectDir.getAbsoluteFile();
+        this.methodsThreshold = methodsThreshold;
+        this.debounceMillis = debounceMillis;
+        this.walker = analyzer.getSourceFileWalker();
+    }
+
+    // Lance l'analyse initiale puis surveille le projet jusqu'à l'interruption du thread
+    public void watch() throws IOException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            registerAll(watchService, projectDir.toPath());
+
+            model = new IncrementalModel(new ClassStructureVisitor());
+            analyzer.visitor = model.getTotals();
+            analyzer.analyzeFiles(projectDir, analyzer.getJavaFiles(projectDir), model::put);
+            analyzer.displayResults(methodsThreshold);
+            System.out.println("\nSurveillance de " + projectDir.getAbsolutePath() + " (Ctrl+C pour arrêter)...");
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new LinkedHashSet<>();
+                Set<Path> deleted = new LinkedHashSet<>();
+                boolean overflow = false;
+
+                // Attente du premier événement, puis regroupement des suivants
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    overflow |= collectEvents(watchService, key, changed, deleted);
+                    key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                update(changed, deleted, overflow);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Enregistre les événements d'une clé ; retourne true en cas de débordement (événements perdus)
+    private boolean collectEvents(WatchService watchService, WatchKey key, Set<Path> changed, Set<Path> deleted) throws IOException {
+        Path dir = watchedDirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                changed.remove(path);
+                deleted.add(path);
+            } else if (Files.isDirectory(path)) {
+                // Nouveau répertoire : le surveiller et analyser les fichiers qu'il contient déjà
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && !walker.isExcludedDirectory(projectDir.toPath(), path)) {
+                    registerAll(watchService, path);
+                    walker.walk(projectDir, path.toFile(), file -> changed.add(file.toPath()));
+                }
+            } else if (walker.isIncludedFile(projectDir.toPath(), path)) {
+                deleted.remove(path);
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+        return overflow;
+    }
+
+    // Retire les contributions des fichiers supprimés ou modifiés, réanalyse ces derniers et affiche le rapport
+    private void update(Set<Path> changed, Set<Path> deleted, boolean overflow) {
+        long start = System.nanoTime();
+        int removed = 0;
+        for (Path path : deleted) {
+            File file = path.toFile();
+            removed += model.remove(file) ? 1 : model.removeUnder(file);
+        }
+
+        List<File> toAnalyze = new ArrayList<>();
+        if (overflow) {
+            // Des événements ont été perdus : resynchronisation avec le contenu réel du projet
+            List<File> javaFiles = analyzer.getJavaFiles(projectDir);
+            Set<File> existing = new LinkedHashSet<>(javaFiles);
+            for (File file : new ArrayList<>(model.getFiles())) {
+                if (!existing.contains(file)) {
+                    removed += model.remove(file) ? 1 : 0;
+                }
+            }
+            toAnalyze.addAll(javaFiles);
+        } else {
+            for (Path path : changed) {
+                if (Files.isRegularFile(path)) {
+                    toAnalyze.add(path.toFile());
+                }
+            }
+        }
+        if (toAnalyze.isEmpty() && removed == 0) {
+            return;
+        }
+
+        analyzer.analyzeFiles(projectDir, toAnalyze, model::put);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println("\n--- Mise à jour : " + toAnalyze.size() + " fichier(s) réanalysé(s), " + removed
+                + " supprimé(s) en " + elapsedMillis + " ms ---");
+        analyzer.displayResults(methodsThreshold);
+    }
+
+    private void registerAll(WatchService watchService, Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(projectDir.toPath()) && walker.isExcludedDirectory(projectDir.toPath(), dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirs.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package com.analyser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Différences entre deux instantanés d'analyse : compteurs globaux, classes, méthodes déclarées et arcs d'appel
+// ajoutés ou supprimés, et variations des métriques des classes présentes dans les deux. Les méthodes de l'ancien
+// graphe sont mises en correspondance une seule fois avec celles du nouveau (par nom qualifié), puis chaque arc
+// est vérifié dans l'autre graphe : le calcul est linéaire en nombre de méthodes et d'arcs.
+public class SnapshotDiff {
+
+    // Variation d'une métrique (globale ou d'une classe)
+    public static class Delta {
+        public final String name;
+        public final long before;
+        public final long after;
+
+        Delta(String name, long before, long after) {
+            this.name = name;
+            this.before = before;
+            this.after = after;
+        }
+
+        public long getChange() {
+            return after - before;
+        }
+    }
+
+    private final List<Delta> totals = new ArrayList<>();
+    private final List<String> addedClasses = new ArrayList<>();
+    private final List<String> removedClasses = new ArrayList<>();
+    private final List<String> addedMethods = new ArrayList<>();
+    private final List<String> removedMethods = new ArrayList<>();
+    private final List<String> addedCalls = new ArrayList<>();
+    private final List<String> removedCalls = new ArrayList<>();
+    // Variations par classe ("Classe : métrique"), les plus fortes d'abord
+    private final List<Delta> classDeltas = new ArrayList<>();
+
+    public SnapshotDiff(ClassStructureVisitor before, ClassStructureVisitor after) {
+        compareTotals(before, after);
+        compareClasses(before, after);
+        compareCallGraphs(before.getCompactCallGraph(), after.getCompactCallGraph());
+    }
+
+    private void compareTotals(ClassStructureVisitor before, ClassStructureVisitor after) {
+        totals.add(new Delta("classes", before.getClassCount(), after.getClassCount()));
+        totals.add(new Delta("méthodes", before.getMethodCount(), after.getMethodCount()));
+        totals.add(new Delta("attributs", before.getAttributeCount(), after.getAttributeCount()));
+        totals.add(new Delta("packages", before.getPackageNames().size(), after.getPackageNames().size()));
+        totals.add(new Delta("lignes de code (méthodes)", before.getTotalLines(), after.getTotalLines()));
+        totals.add(new Delta("lignes physiques", before.getPhysicalLines(), after.getPhysicalLines()));
+        totals.add(new Delta("lignes logiques", before.getLogicalLines(), after.getLogicalLines()));
+        totals.add(new Delta("lignes de commentaires", before.getCommentLines(), after.getCommentLines()));
+        totals.add(new Delta("paramètres maximum", before.getMaxParameters(), after.getMaxParameters()));
+        totals.add(new Delta("arcs d'appel", before.getCompactCallGraph().getEdgeCount(),
+                after.getCompactCallGraph().getEdgeCount()));
+    }
+
+    // Types nommés ajoutés ou supprimés, puis variations des méthodes, attributs et lignes des types communs
+    private void compareClasses(ClassStructureVisitor before, ClassStructureVisitor after) {
+        Set<String> beforeClasses = classNames(before);
+        Set<String> afterClasses = classNames(after);
+        for (String className : afterClasses) {
+            if (!beforeClasses.contains(className)) {
+                addedClasses.add(className);
+            }
+        }
+        for (String className : beforeClasses) {
+            if (!afterClasses.contains(className)) {
+                removedClasses.add(className);
+                continue;
+            }
+            addDelta(className + " : méthodes", before.getMethodsPerClass().get(className), after.getMethodsPerClass().get(className));
+            addDelta(className + " : attributs", before.getAttributesPerClass().get(className),
+                    after.getAttributesPerClass().get(className));
+            LineMetrics beforeLines = before.getLinesPerClass().get(className);
+            LineMetrics afterLines = after.getLinesPerClass().get(className);
+            if (beforeLines != null && afterLines != null) {
+                addDelta(className + " : lignes", beforeLines.getPhysical(), afterLines.getPhysical());
+            }
+        }
+        Collections.sort(addedClasses);
+        Collections.sort(removedClasses);
+        classDeltas.sort((a, b) -> {
+            int byChange = Long.compare(Math.abs(b.getChange()), Math.abs(a.getChange()));
+            return byChange != 0 ? byChange : a.name.compareTo(b.name);
+        });
+    }
+
+    private void addDelta(String name, Integer before, Integer after) {
+        if (before != null && after != null && !before.equals(after)) {
+            classDeltas.add(new Delta(name, before, after));
+        }
+    }
+
+    private static Set<String> classNames(ClassStructureVisitor results) {
+        Set<String> names = new HashSet<>(results.getLinesPerClass().keySet());
+        names.addAll(results.getMethodsPerClass().keySet());
+        return names;
+    }
+
+    private void compareCallGraphs(CallGraph before, CallGraph after) {
+        int[] beforeToAfter = mapNodes(before, after);
+        int[] afterToBefore = mapNodes(after, before);
+        for (int node = 0; node < after.getNodeCount(); node++) {
+            if (after.isDeclared(node) && (afterToBefore[node] < 0 || !before.isDeclared(afterToBefore[node]))) {
+                addedMethods.add(after.getName(node));
+            }
+        }
+        for (int node = 0; node < before.getNodeCount(); node++) {
+            if (before.isDeclared(node) && (beforeToAfter[node] < 0 || !after.isDeclared(beforeToAfter[node]))) {
+                removedMethods.add(before.getName(node));
+            }
+        }
+        collectMissingEdges(after, before, afterToBefore, addedCalls);
+        collectMissingEdges(before, after, beforeToAfter, removedCalls);
+        Collections.sort(addedMethods);
+        Collections.sort(removedMethods);
+        Collections.sort(addedCalls);
+        Collections.sort(removedCalls);
+    }
+
+    // Identifiant dans "to" de chaque méthode de "from" (-1 si elle n'y figure pas)
+    private static int[] mapNodes(CallGraph from, CallGraph to) {
+        int[] mapping = new int[from.getNodeCount()];
+        for (int node = 0; node < mapping.length; node++) {
+            mapping[node] = to.find(from.getName(node));
+        }
+        return mapping;
+    }
+
+    // Arcs de "graph" absents de "other"
+    private static void collectMissingEdges(CallGraph graph, CallGraph other, int[] mapping, List<String> missing) {
+        graph.forEachEdge((caller, callee) -> {
+            if (mapping[caller] < 0 || mapping[callee] < 0 || !other.hasEdge(mapping[caller], mapping[callee])) {
+                missing.add(graph.getName(caller) + " -> " + graph.getName(callee));
+            }
+        });
+    }
+
+    public List<Delta> getTotals() {
+        return totals;
+    }
+
+    public List<String> getAddedClasses() {
+        return addedClasses;
+    }
+
+    public List<String> getRemovedClasses() {
+        return removedClasses;
+    }
+
+    public List<String> getAddedMethods() {
+        return addedMethods;
+    }
+
+    public List<String> getRemovedMethods() {
+        return removedMethods;
+    }
+
+    public List<String> getAddedCalls() {
+        return addedCalls;
+    }
+
+    public List<String> getRemovedCalls() {
+        return removedCalls;
+    }
+
+    public List<Delta> getClassDeltas() {
+        return classDeltas;
+    }
+
+    public boolean isEmpty() {
+        for (Delta delta : totals) {
+            if (delta.getChange() != 0) {
+                return false;
+            }
+        }
+        return addedClasses.isEmpty() && removedClasses.isEmpty() && addedMethods.isEmpty() && removedMethods.isEmpty()
+                && addedCalls.isEmpty() && removedCalls.isEmpty() && classDeltas.isEmpty();
+    }
+
+    // Affiche les différences ; chaque liste est limitée à ses limit premiers éléments
+    public void display(int limit) {
+        System.out.println("Compteurs globaux :");
+        for (Delta delta : totals) {
+            System.out.println(String.format("  %-28s %10d -> %10d (%+d)", delta.name, delta.before, delta.after,
+                    delta.getChange()));
+        }
+        displayList("Classes ajoutées", addedClasses, limit);
+        displayList("Classes supprimées", removedClasses, limit);
+        displayList("Méthodes ajoutées", addedMethods, limit);
+        displayList("Méthodes supprimées", removedMethods, limit);
+        displayList("Appels ajoutés", addedCalls, limit);
+        displayList("Appels supprimés", removedCalls, limit);
+        System.out.println("Variations des métriques par classe (" + classDeltas.size() + ") :");
+        for (int i = 0; i < Math.min(limit, classDeltas.size()); i++) {
+            Delta delta = classDeltas.get(i);
+            System.out.println(String.format("  %s : %d -> %d (%+d)", delta.name, delta.before, delta.after, delta.getChange()));
+        }
+        if (classDeltas.size() > limit) {
+            System.out.println("  ... et " + (classDeltas.size() - limit) + " autres");
+        }
+    }
+
+    private static void displayList(String title, List<String> items, int limit) {
+        System.out.println(title + " (" + items.size() + ") :");
+        for (int i = 0; i < Math.min(limit, items.size()); i++) {
+            System.out.println("  " + items.get(i));
+        }
+        if (items.size() > limit) {
+            System.out.println("  ... et " + (items.size() - limit) + " autres");
+        }
+    }
+
+    // Résumé des variations des compteurs globaux non nuls, par exemple pour une ligne de journal
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        for (Delta delta : totals) {
+            if (delta.getChange() != 0) {
+                text.append(text.length() > 0 ? ", " : "").append(delta.name).append(String.format(" %+d", delta.getChange()));
+            }
+        }
+        return text.length() > 0 ? text.toString() : "aucune variation des compteurs";
+    }
+}
@@ -0,0 +1,118 @@
+package com.analyser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Découverte des fichiers Java d'un projet avec Files.walkFileTree : chaque fichier trouvé est transmis
+// immédiatement au consommateur, ce qui permet de commencer l'analyse pendant le parcours.
+// Les répertoires de build et de gestion de versions sont ignorés par défaut ; des motifs glob
+// (syntaxe PathMatcher, relatifs à la racine) permettent d'inclure ou d'exclure des fichiers.
+public class SourceFileWalker {
+
+    // Répertoires ignorés par défaut (sorties de build, gestion de versions, dépendances)
+    public static final Set<String> DEFAULT_EXCLUDED_DIRS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            ".git", ".svn", ".hg", ".idea", ".gradle", "target", "node_modules")));
+
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+    private final boolean defaultExcludes;
+
+    public SourceFileWalker(List<String> includePatterns, List<String> excludePatterns, boolean defaultExcludes) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        for (String pattern : includePatterns) {
+            includes.add(fileSystem.getPathMatcher("glob:" + pattern));
+        }
+        for (String pattern : excludePatterns) {
+            excludes.add(fileSystem.getPathMatcher("glob:" + pattern));
+        }
+        this.defaultExcludes = defaultExcludes;
+    }
+
+    public SourceFileWalker() {
+        this(Collections.<String>emptyList(), Collections.<String>emptyList(), true);
+    }
+
+    // Parcourt l'arborescence et transmet chaque fichier Java retenu au consommateur ; retourne le nombre de fichiers
+    public int walk(File root, Consumer<File> consumer) throws IOException {
+        return walk(root, root, consumer);
+    }
+
+    // Parcourt seulement le sous-répertoire start ; les motifs restent relatifs à la racine du projet
+    public int walk(File root, File start, Consumer<File> consumer) throws IOException {
+        Path rootPath = root.toPath();
+        Path startPath = start.toPath();
+        int[] count = {0};
+        Files.walkFileTree(startPath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(rootPath) || !isExcludedDirectory(rootPath, dir)
+                        ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isIncludedFile(rootPath, file)) {
+                    count[0]++;
+                    consumer.accept(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                System.err.println("Erreur lors de l'accès au fichier : " + file + " (" + e.getMessage() + ")");
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return count[0];
+    }
+
+    // Retourne la liste complète des fichiers Java retenus
+    public List<File> list(File root) throws IOException {
+        List<File> javaFiles = new ArrayList<>();
+        walk(root, javaFiles::add);
+        return javaFiles;
+    }
+
+    // Indique si un sous-répertoire de la racine doit être ignoré
+    public boolean isExcludedDirectory(Path root, Path dir) {
+        Path name = dir.getFileName();
+        if (defaultExcludes && name != null && DEFAULT_EXCLUDED_DIRS.contains(name.toString())) {
+            return true;
+        }
+        return matchesAny(excludes, root.relativize(dir));
+    }
+
+    // Indique si un fichier de l'arborescence est un fichier Java retenu par les motifs
+    public boolean isIncludedFile(Path root, Path file) {
+        if (!file.getFileName().toString().endsWith(".java")) {
+            return false;
+        }
+        Path relative = root.relativize(file);
+        return (includes.isEmpty() || matchesAny(includes, relative)) && !matchesAny(excludes, relative);
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,137 @@
+package com.analyser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Lecture des fichiers sources dans un encodage donné. Les petits fichiers sont lus dans un tampon direct réutilisé,
+// les gros sont projetés en mémoire (FileChannel.map), puis décodés directement dans un tampon de caractères
+// réutilisé : chaque thread garde son décodeur et ses tampons, et un fichier ne produit qu'un seul tableau, à la
+// taille exacte attendue par ASTParser.setSource (qui n'accepte ni décalage ni longueur).
+public class SourceLoader {
+
+    // Au-delà de cette taille, le fichier est projeté en mémoire plutôt que copié dans le tampon direct
+    private static final int MAP_THRESHOLD = 1 << 20;
+
+    private static final Pattern SOURCE_ENCODING =
+            Pattern.compile("<project\\.build\\.sourceEncoding>\\s*([^<\\s]+)\\s*</project\\.build\\.sourceEncoding>");
+
+    private final Charset charset;
+    private final ThreadLocal<Buffers> buffers;
+
+    // Décodeur et tampons d'un thread
+    private static class Buffers {
+        final CharsetDecoder decoder;
+        ByteBuffer bytes = ByteBuffer.allocateDirect(1 << 16);
+        CharBuffer chars = CharBuffer.allocate(1 << 16);
+
+        Buffers(Charset charset) {
+            // Les octets invalides sont remplacés (U+FFFD), comme le faisait new String(byte[])
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    }
+
+    public SourceLoader(Charset charset) {
+        this.charset = charset;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(charset));
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    // Encodage des sources d'un projet : celui donné s'il n'est pas null, sinon project.build.sourceEncoding
+    // du pom.xml du projet, sinon l'encodage par défaut de la plateforme
+    public static Charset resolveCharset(File projectDir, Charset charset) {
+        if (charset != null) {
+            return charset;
+        }
+        String encoding = findSourceEncoding(projectDir);
+        if (encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                System.err.println("Encodage des sources inconnu dans le pom.xml : " + encoding
+                        + " (encodage par défaut utilisé)");
+            }
+        }
+        return Charset.defaultCharset();
+    }
+
+    // Valeur de la propriété project.build.sourceEncoding du pom.xml du projet (null si absente)
+    static String findSourceEncoding(File projectDir) {
+        File pom = new File(projectDir, "pom.xml");
+        if (!pom.isFile()) {
+            return null;
+        }
+        try {
+            // Les balises du pom sont en ASCII : l'encodage du fichier lui-même n'importe pas pour les trouver
+            Matcher matcher = SOURCE_ENCODING.matcher(new String(Files.readAllBytes(pom.toPath()), "ISO-8859-1"));
+            return matcher.find() ? matcher.group(1) : null;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du fichier : " + pom.getAbsolutePath());
+            return null;
+        }
+    }
+
+    // Contenu d'un fichier source décodé
+    public char[] read(File file) throws IOException {
+        Buffers state = buffers.get();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer input;
+            if (size > MAP_THRESHOLD) {
+                input = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                if (state.bytes.capacity() < size) {
+                    state.bytes = ByteBuffer.allocateDirect(Integer.highestOneBit((int) size) << 1);
+                }
+                input = state.bytes;
+                input.clear();
+                input.limit((int) size);
+                while (input.hasRemaining() && channel.read(input) >= 0) {
+                    // Lecture jusqu'à la fin du fichier
+                }
+                input.flip();
+            }
+            return decode(state, input);
+        }
+    }
+
+    private static char[] decode(Buffers state, ByteBuffer input) throws CharacterCodingException {
+        CharsetDecoder decoder = state.decoder.reset();
+        int expected = (int) Math.min(Integer.MAX_VALUE - 8, (long) (input.remaining() * (double) decoder.maxCharsPerByte()));
+        if (state.chars.capacity() < expected) {
+            state.chars = CharBuffer.allocate(expected);
+        }
+        CharBuffer output = state.chars;
+        output.clear();
+        CoderResult result = decoder.decode(input, output, true);
+        if (result.isUnderflow()) {
+            result = decoder.flush(output);
+        }
+        if (!result.isUnderflow()) {
+            // Tampon trop petit (maxCharsPerByte sous-estimé par le décodeur) : décodage ordinaire
+            input.rewind();
+            CharBuffer decoded = decoder.reset().decode(input);
+            return Arrays.copyOf(decoded.array(), decoded.remaining());
+        }
+        return Arrays.copyOf(output.array(), output.position());
+    }
+}
@@ -0,0 +1,139 @@
+package com.analyser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+// Écriture de texte en UTF-8 (quel que soit le charset de la plateforme) dans un canal NIO, à travers un grand
+// tampon direct vidé seulement quand il est plein. Les caractères et les entiers sont encodés directement dans
+// le tampon, sans chaîne ni tableau intermédiaire.
+public class Utf8ChannelWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // Première moitié d'une paire de substitution en attente de la seconde (0 si aucune)
+    private char highSurrogate = 0;
+
+    public Utf8ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    // Ouvre (ou remplace) un fichier, éventuellement compressé en gzip
+    public static Utf8ChannelWriter open(Path path, boolean gzip) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (!gzip) {
+            return new Utf8ChannelWriter(file);
+        }
+        OutputStream compressed = new GZIPOutputStream(Channels.newOutputStream(file), 1 << 16);
+        return new Utf8ChannelWriter(Channels.newChannel(compressed));
+    }
+
+    public void write(char c) throws IOException {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                writeCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            ensure(1);
+            buffer.put((byte) '?');
+        }
+        if (c < 0x80) {
+            ensure(1);
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            ensure(2);
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            ensure(1);
+            buffer.put((byte) '?');
+        } else {
+            ensure(3);
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    public void write(CharSequence text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            write(text.charAt(i));
+        }
+    }
+
+    private void writeCodePoint(int codePoint) throws IOException {
+        ensure(4);
+        buffer.put((byte) (0xF0 | (codePoint >> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+    }
+
+    // Écrit un entier positif ou nul en décimal
+    public void writeInt(int value) throws IOException {
+        dropPendingSurrogate();
+        if (value < 0) {
+            write(Integer.toString(value));
+            return;
+        }
+        ensure(10);
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for (int index = end - 1; index >= buffer.position(); index--) {
+            buffer.put(index, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    // Un demi-caractère isolé (sans sa paire) ne peut pas être encodé
+    private void dropPendingSurrogate() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            ensure(1);
+            buffer.put((byte) '?');
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            dropPendingSurrogate();
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}